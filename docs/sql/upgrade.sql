@@ -0,0 +1,92 @@
+-- 已有数据库升级脚本（按版本顺序执行）
+-- CREATE TABLE 语句可重复执行；ADD INDEX 重复执行会报 Duplicate key name，可忽略
+-- 新部署直接使用根目录 init.sql 即可
+
+-- ============ 演员/标签关联表 ============
+-- 替代 videos.actresses / videos.tags 上的 LIKE '%x%' 全表扫描
+-- 历史数据由应用启动时自动回填，无需手动迁移
+CREATE TABLE IF NOT EXISTS video_actress (
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    name VARCHAR(100) NOT NULL COMMENT '演员名',
+    PRIMARY KEY (video_id, name),
+    INDEX idx_name (name, video_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='视频演员关联表';
+
+CREATE TABLE IF NOT EXISTS video_tag (
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    name VARCHAR(100) NOT NULL COMMENT '标签名',
+    PRIMARY KEY (video_id, name),
+    INDEX idx_name (name, video_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='视频标签关联表';
+
+-- ============ 最新视频排序索引 ============
+ALTER TABLE videos ADD INDEX idx_created_time (created_time);
+
+-- ============ 推送记录清理索引 ============
+ALTER TABLE push_records ADD INDEX idx_pushed_at (pushed_at);
+
+-- ============ 推送记录去重与幂等写入 ============
+-- 先清理重复记录：同一视频和聊天只保留一条，优先保留 SUCCESS，其次保留最新的一条
+DELETE p1 FROM push_records p1
+JOIN push_records p2 ON p1.video_id = p2.video_id AND p1.chat_id = p2.chat_id
+    AND ((p2.status = 'SUCCESS' AND p1.status <> 'SUCCESS') OR (p1.status = p2.status AND p1.id < p2.id));
+ALTER TABLE push_records
+    ADD COLUMN attempts INT NOT NULL DEFAULT 1 COMMENT '推送尝试次数' AFTER message_id,
+    ADD UNIQUE KEY uk_video_chat (video_id, chat_id),
+    ADD INDEX idx_video_status_chat (video_id, status, chat_id),
+    DROP INDEX idx_video_id;
+
+-- ============ 运行统计 ============
+CREATE TABLE IF NOT EXISTS stats_hourly (
+    hour_start DATETIME PRIMARY KEY COMMENT '小时起始时间',
+    new_videos BIGINT NOT NULL DEFAULT 0 COMMENT '新增视频数',
+    push_success BIGINT NOT NULL DEFAULT 0 COMMENT '推送成功数',
+    push_failed BIGINT NOT NULL DEFAULT 0 COMMENT '推送失败数',
+    crawl_runs BIGINT NOT NULL DEFAULT 0 COMMENT '定时抓取次数',
+    crawl_duration_ms BIGINT NOT NULL DEFAULT 0 COMMENT '定时抓取总耗时(毫秒)',
+    updated_time DATETIME
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='小时统计表';
+
+-- ============ 多节点选主 ============
+CREATE TABLE IF NOT EXISTS leader_lease (
+    name VARCHAR(191) PRIMARY KEY COMMENT '租约名称（crawler / push-node:节点ID / push-shard:分片）',
+    owner VARCHAR(128) COMMENT '持有者节点ID',
+    fencing_token BIGINT NOT NULL DEFAULT 0 COMMENT '换主时递增的令牌',
+    expires_at DATETIME COMMENT '租约到期时间',
+    renewed_at DATETIME COMMENT '最近续约时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='租约表';
+
+-- ============ 分片推送任务 ============
+CREATE TABLE IF NOT EXISTS push_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    chat_id BIGINT NOT NULL COMMENT '聊天ID',
+    shard INT NOT NULL COMMENT '按 chat_id 哈希的分片',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已领取次数',
+    available_at DATETIME NOT NULL COMMENT '可领取时间',
+    claimed_by VARCHAR(128) COMMENT '领取者',
+    claim_id VARCHAR(36) COMMENT '领取ID',
+    created_time DATETIME,
+    UNIQUE KEY uk_video_chat (video_id, chat_id),
+    INDEX idx_shard_available (shard, available_at),
+    INDEX idx_chat_available (chat_id, available_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='推送任务表';
+
+-- ============ 新视频事件（transactional outbox） ============
+CREATE TABLE IF NOT EXISTS video_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已转发次数',
+    available_at DATETIME NOT NULL COMMENT '可转发时间',
+    parked_time DATETIME COMMENT '搁置时间（超过最大转发次数）',
+    created_time DATETIME,
+    INDEX idx_video_id (video_id),
+    INDEX idx_available_at (available_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='新视频事件表';
+-- 尚未推送的视频补写事件，升级后由转发线程推送；已有事件的视频跳过，重复执行不会写入重复事件
+INSERT INTO video_outbox (video_id, available_at, created_time)
+SELECT id, NOW(), NOW() FROM videos
+WHERE pushed = 0 AND NOT EXISTS (SELECT 1 FROM video_outbox o WHERE o.video_id = videos.id);
+
+-- ============ 多节点视图同步索引 ============
+ALTER TABLE videos ADD INDEX idx_updated_time (updated_time);
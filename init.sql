@@ -19,7 +19,9 @@ CREATE TABLE IF NOT EXISTS videos (
     updated_time DATETIME,
     remark VARCHAR(500),
     INDEX idx_code (code),
-    INDEX idx_pushed (pushed)
+    INDEX idx_pushed (pushed),
+    INDEX idx_created_time (created_time),
+    INDEX idx_updated_time (updated_time)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='视频表';
 
 -- 订阅表
@@ -50,6 +52,7 @@ CREATE TABLE IF NOT EXISTS push_records (
     fail_reason VARCHAR(500) COMMENT '失败原因',
     pushed_at DATETIME COMMENT '推送时间',
     message_id INT COMMENT '消息ID',
+    attempts INT NOT NULL DEFAULT 1 COMMENT '推送尝试次数',
     created_id VARCHAR(50),
     created_name VARCHAR(100),
     created_time DATETIME,
@@ -57,6 +60,85 @@ CREATE TABLE IF NOT EXISTS push_records (
     updated_name VARCHAR(100),
     updated_time DATETIME,
     remark VARCHAR(500),
-    INDEX idx_video_id (video_id),
-    INDEX idx_chat_id (chat_id)
+    UNIQUE KEY uk_video_chat (video_id, chat_id),
+    INDEX idx_video_status_chat (video_id, status, chat_id),
+    INDEX idx_chat_id (chat_id),
+    INDEX idx_pushed_at (pushed_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='推送记录表';
+
+-- 可选：推送记录按月分区（配合 push.retention.mode=partition，过期月份直接 DROP PARTITION）
+-- 分区表的主键/唯一键必须包含分区列，因此主键改为 (id, pushed_at)，pushed_at 不能为空
+-- 同理 uk_video_chat 需改为普通索引，分区后推送结果改为先 UPDATE 再 INSERT 写入（依赖同一聊天串行发送），数据库不再保证唯一
+-- 分区 pYYYYMM 存放该月数据，清理任务会自动预建下个月的分区
+-- ALTER TABLE push_records MODIFY pushed_at DATETIME NOT NULL COMMENT '推送时间',
+--     DROP PRIMARY KEY, ADD PRIMARY KEY (id, pushed_at),
+--     DROP INDEX uk_video_chat, ADD INDEX idx_video_chat (video_id, chat_id);
+-- ALTER TABLE push_records PARTITION BY RANGE (TO_DAYS(pushed_at)) (
+--     PARTITION p202601 VALUES LESS THAN (TO_DAYS('2026-02-01')),
+--     PARTITION p202602 VALUES LESS THAN (TO_DAYS('2026-03-01')),
+--     PARTITION pmax VALUES LESS THAN MAXVALUE
+-- );
+
+-- 视频演员关联表
+CREATE TABLE IF NOT EXISTS video_actress (
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    name VARCHAR(100) NOT NULL COMMENT '演员名',
+    PRIMARY KEY (video_id, name),
+    INDEX idx_name (name, video_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='视频演员关联表';
+
+-- 视频标签关联表
+CREATE TABLE IF NOT EXISTS video_tag (
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    name VARCHAR(100) NOT NULL COMMENT '标签名',
+    PRIMARY KEY (video_id, name),
+    INDEX idx_name (name, video_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='视频标签关联表';
+
+-- 小时统计表
+CREATE TABLE IF NOT EXISTS stats_hourly (
+    hour_start DATETIME PRIMARY KEY COMMENT '小时起始时间',
+    new_videos BIGINT NOT NULL DEFAULT 0 COMMENT '新增视频数',
+    push_success BIGINT NOT NULL DEFAULT 0 COMMENT '推送成功数',
+    push_failed BIGINT NOT NULL DEFAULT 0 COMMENT '推送失败数',
+    crawl_runs BIGINT NOT NULL DEFAULT 0 COMMENT '定时抓取次数',
+    crawl_duration_ms BIGINT NOT NULL DEFAULT 0 COMMENT '定时抓取总耗时(毫秒)',
+    updated_time DATETIME
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='小时统计表';
+
+-- 租约表（主节点选举、推送分片归属）
+CREATE TABLE IF NOT EXISTS leader_lease (
+    name VARCHAR(191) PRIMARY KEY COMMENT '租约名称（crawler / push-node:节点ID / push-shard:分片）',
+    owner VARCHAR(128) COMMENT '持有者节点ID',
+    fencing_token BIGINT NOT NULL DEFAULT 0 COMMENT '换主时递增的令牌',
+    expires_at DATETIME COMMENT '租约到期时间',
+    renewed_at DATETIME COMMENT '最近续约时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='租约表';
+
+-- 推送任务表
+CREATE TABLE IF NOT EXISTS push_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    chat_id BIGINT NOT NULL COMMENT '聊天ID',
+    shard INT NOT NULL COMMENT '按 chat_id 哈希的分片',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已领取次数',
+    available_at DATETIME NOT NULL COMMENT '可领取时间',
+    claimed_by VARCHAR(128) COMMENT '领取者',
+    claim_id VARCHAR(36) COMMENT '领取ID',
+    created_time DATETIME,
+    UNIQUE KEY uk_video_chat (video_id, chat_id),
+    INDEX idx_shard_available (shard, available_at),
+    INDEX idx_chat_available (chat_id, available_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='推送任务表';
+
+-- 新视频事件表
+CREATE TABLE IF NOT EXISTS video_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已转发次数',
+    available_at DATETIME NOT NULL COMMENT '可转发时间',
+    parked_time DATETIME COMMENT '搁置时间（超过最大转发次数）',
+    created_time DATETIME,
+    INDEX idx_video_id (video_id),
+    INDEX idx_available_at (available_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='新视频事件表';
@@ -1,30 +1,46 @@
 package com.missav.bot.bot;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.missav.bot.bot.dispatch.ChatCommandDispatcher;
+import com.missav.bot.bot.dispatch.CrawlJobExecutor;
+import com.missav.bot.cluster.dto.LeaderLeaseStatus;
+import com.missav.bot.cluster.service.ILeaderElectionService;
 import com.missav.bot.crawler.CrawlResult;
+import com.missav.bot.pipeline.CrawlPipeline;
+import com.missav.bot.pipeline.dto.PipelineStageStatus;
 import com.missav.bot.push.service.IPushService;
+import com.missav.bot.stats.dto.StatsSnapshot;
+import com.missav.bot.stats.service.IStatsService;
 import com.missav.bot.subscription.entity.Subscription;
 import com.missav.bot.subscription.entity.Subscription.SubscriptionType;
+import com.missav.bot.telegram.MarkdownEscaper;
 import com.missav.bot.telegram.TelegramMessageService;
 import com.missav.bot.video.entity.Video;
-import com.missav.bot.video.mapper.VideoMapper;
+import com.missav.bot.video.search.VideoSearchIndex;
+import com.missav.bot.video.service.ILatestVideoService;
 import com.missav.bot.subscription.service.ISubscriptionService;
 import com.missav.bot.crawler.service.ICrawlerService;
-import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.commands.SetMyCommands;
-import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.CallbackQuery;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.commands.BotCommand;
 import org.telegram.telegrambots.meta.api.objects.commands.scope.BotCommandScopeDefault;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
 
 
 @Slf4j
@@ -33,12 +49,26 @@ import java.util.List;
 public class MissavBot extends TelegramLongPollingBot {
 
     private static final int TITLE_MAX_LENGTH = 30;
+    private static final int LATEST_PAGE_SIZE = 5;
+    private static final int SEARCH_RESULT_LIMIT = 10;
+    private static final String LATEST_CALLBACK_PREFIX = "latest:";
+
+    /**
+     * 当前页码按钮只用于展示，点击后仅应答回调
+     */
+    private static final String LATEST_NOOP_CALLBACK = LATEST_CALLBACK_PREFIX + "noop";
 
     private final ISubscriptionService subscriptionService;
-    private final VideoMapper videoMapper;
+    private final ILatestVideoService latestVideoService;
+    private final IStatsService statsService;
+    private final VideoSearchIndex videoSearchIndex;
     private final ICrawlerService crawlerService;
     private final IPushService pushService;
     private final TelegramMessageService telegramMessageService;
+    private final ChatCommandDispatcher commandDispatcher;
+    private final CrawlJobExecutor crawlJobExecutor;
+    private final CrawlPipeline crawlPipeline;
+    private final ILeaderElectionService leaderElectionService;
 
     @Value("${telegram.bot.token}")
     private String botToken;
@@ -46,22 +76,38 @@ public class MissavBot extends TelegramLongPollingBot {
     @Value("${telegram.bot.username:MissavBot}")
     private String botUsername;
 
+    @Value("${crawler.interval:900000}")
+    private long crawlInterval;
+
     public MissavBot(DefaultBotOptions botOptions,
-                     ISubscriptionService subscriptionService, VideoMapper videoMapper,
+                     ISubscriptionService subscriptionService,
+                     ILatestVideoService latestVideoService, VideoSearchIndex videoSearchIndex,
+                     IStatsService statsService,
                      ICrawlerService crawlerService, IPushService pushService,
-                     TelegramMessageService telegramMessageService) {
+                     TelegramMessageService telegramMessageService,
+                     ChatCommandDispatcher commandDispatcher, CrawlJobExecutor crawlJobExecutor,
+                     CrawlPipeline crawlPipeline, ILeaderElectionService leaderElectionService) {
         super(botOptions);
         this.subscriptionService = subscriptionService;
-        this.videoMapper = videoMapper;
+        this.latestVideoService = latestVideoService;
+        this.statsService = statsService;
+        this.videoSearchIndex = videoSearchIndex;
         this.crawlerService = crawlerService;
         this.pushService = pushService;
         this.telegramMessageService = telegramMessageService;
+        this.commandDispatcher = commandDispatcher;
+        this.crawlJobExecutor = crawlJobExecutor;
+        this.crawlPipeline = crawlPipeline;
+        this.leaderElectionService = leaderElectionService;
 
         // 设置 TelegramMessageService 的 bot 实例
         this.telegramMessageService.setBot(this);
     }
 
-    @PostConstruct
+    /**
+     * 应用就绪后设置命令菜单，网络异常不影响启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
     public void setupCommands() {
         try {
             List<BotCommand> commands = new ArrayList<>();
@@ -94,6 +140,11 @@ public class MissavBot extends TelegramLongPollingBot {
 
     @Override
     public void onUpdateReceived(Update update) {
+        if (update.hasCallbackQuery()) {
+            onCallbackQuery(update.getCallbackQuery());
+            return;
+        }
+
         if (!update.hasMessage() || !update.getMessage().hasText()) {
             return;
         }
@@ -105,10 +156,53 @@ public class MissavBot extends TelegramLongPollingBot {
 
         log.info("收到消息: chatId={}, type={}, text={}", chatId, chatType, text);
 
+        if (!text.startsWith("/")) {
+            return;
+        }
+
+        // 同一聊天的命令按顺序执行，不同聊天并行执行
+        boolean accepted = commandDispatcher.dispatch(chatId, () -> processMessage(message, text));
+        if (!accepted) {
+            sendText(chatId, "⏳ 命令太多啦，请等前面的命令处理完再试");
+        }
+    }
+
+    /**
+     * 处理内联按钮回调，与命令共用聊天分发通道以保证顺序
+     */
+    private void onCallbackQuery(CallbackQuery callbackQuery) {
+        String data = callbackQuery.getData();
+        if (data == null || callbackQuery.getMessage() == null) {
+            telegramMessageService.answerCallback(callbackQuery.getId(), null);
+            return;
+        }
+
+        Long chatId = callbackQuery.getMessage().getChatId();
+        boolean accepted = commandDispatcher.dispatch(chatId, () -> {
+            if (data.equals(LATEST_NOOP_CALLBACK)) {
+                telegramMessageService.answerCallback(callbackQuery.getId(), null);
+            } else if (data.startsWith(LATEST_CALLBACK_PREFIX)) {
+                handleLatestCallback(callbackQuery);
+            } else {
+                telegramMessageService.answerCallback(callbackQuery.getId(), null);
+            }
+        });
+        if (!accepted) {
+            telegramMessageService.answerCallback(callbackQuery.getId(), "操作太频繁，请稍后再试");
+        }
+    }
+
+    /**
+     * 处理单条命令消息（在聊天对应的分发通道中执行）
+     */
+    private void processMessage(Message message, String text) {
+        Long chatId = message.getChatId();
+        String chatType = message.getChat().getType();
+
         // 自动为新群组创建订阅（仅群组/超级群组，不包括私聊）
         // 跳过 /subscribe 命令，避免与手动订阅冲突
         if (("group".equals(chatType) || "supergroup".equals(chatType)) &&
-            text.startsWith("/") && !text.toLowerCase().startsWith("/subscribe")) {
+            !text.toLowerCase().startsWith("/subscribe")) {
             try {
                 List<Subscription> existingSubs = subscriptionService.getSubscriptions(chatId);
                 if (existingSubs.isEmpty()) {
@@ -122,9 +216,7 @@ public class MissavBot extends TelegramLongPollingBot {
         }
 
         try {
-            if (text.startsWith("/")) {
-                handleCommand(chatId, chatType, text);
-            }
+            handleCommand(chatId, chatType, text);
         } catch (Exception e) {
             log.error("处理消息失败", e);
             sendText(chatId, "❌ 处理失败：" + e.getMessage());
@@ -255,107 +347,191 @@ public class MissavBot extends TelegramLongPollingBot {
             return;
         }
 
-        List<Video> videos = videoMapper.selectByActress(keyword);
-        if (videos.isEmpty()) {
-            videos = videoMapper.selectByTag(keyword);
-        }
-
-        if (videos.isEmpty()) {
+        IPage<Video> result = videoSearchIndex.search(keyword, 1, SEARCH_RESULT_LIMIT);
+        if (result.getRecords().isEmpty()) {
             sendText(chatId, "🔍 未找到相关视频");
             return;
         }
 
         StringBuilder sb = new StringBuilder("🔍 *搜索结果*\n\n");
-        int count = 0;
-        for (Video video : videos) {
-            if (count >= 10) break;
-            sb.append("• ").append(video.getCode())
-              .append(" - ").append(truncateTitle(video.getTitle()))
-              .append("\n");
-            count++;
+        for (Video video : result.getRecords()) {
+            sb.append("• ");
+            MarkdownEscaper.appendEscaped(sb, video.getCode());
+            sb.append(" - ");
+            MarkdownEscaper.appendEscaped(sb, truncateTitle(video.getTitle()));
+            sb.append("\n");
         }
-        if (videos.size() > 10) {
-            sb.append("\n...共 ").append(videos.size()).append(" 个结果");
+        if (result.getTotal() > SEARCH_RESULT_LIMIT) {
+            sb.append("\n...共 ").append(result.getTotal()).append(" 个结果");
         }
         telegramMessageService.sendMarkdown(chatId, sb.toString());
     }
 
     /**
      * 查看最新视频
+     * 以单条消息展示一页，通过内联按钮翻页并原地编辑
      */
     private void handleLatest(Long chatId, String args) {
-        int page;
+        int page = 1;
         if (!args.isEmpty()) {
             try {
-                page = Integer.parseInt(args);
-                if (page < 1) page = 1;
+                page = Math.max(1, Integer.parseInt(args));
             } catch (NumberFormatException e) {
                 page = 1;
             }
-        } else {
-            page = 1;
         }
 
-        List<Video> videos = videoMapper.selectTop50ByCreatedTimeDesc();
-        if (videos.isEmpty()) {
+        IPage<Video> result = latestVideoService.getLatestPage(page, LATEST_PAGE_SIZE);
+        if (result.getTotal() == 0) {
             sendText(chatId, "暂无视频");
             return;
         }
 
-        int pageSize = 5;
-        int totalPages = (int) Math.ceil(videos.size() / (double) pageSize);
-        int startIndex = (page - 1) * pageSize;
-        int endIndex = Math.min(startIndex + pageSize, videos.size());
-
-        if (startIndex >= videos.size()) {
+        int totalPages = (int) result.getPages();
+        if (page > totalPages) {
             sendText(chatId, "❌ 页码超出范围,共 " + totalPages + " 页");
             return;
         }
 
-        sendText(chatId, String.format("📺 最新视频 (第 %d/%d 页):", page, totalPages));
+        List<Video> pageVideos = result.getRecords();
+        telegramMessageService.sendPhotoWithKeyboard(chatId, firstCoverUrl(pageVideos),
+            formatLatestPage(pageVideos, page, totalPages), latestKeyboard(page, totalPages));
+    }
+
+    /**
+     * 处理最新视频翻页按钮
+     */
+    private void handleLatestCallback(CallbackQuery callbackQuery) {
+        int page;
+        try {
+            page = Integer.parseInt(callbackQuery.getData().substring(LATEST_CALLBACK_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            telegramMessageService.answerCallback(callbackQuery.getId(), null);
+            return;
+        }
 
-        for (int i = startIndex; i < endIndex; i++) {
-            Video video = videos.get(i);
+        IPage<Video> result = latestVideoService.getLatestPage(page, LATEST_PAGE_SIZE);
+        int totalPages = (int) result.getPages();
+        if (result.getRecords().isEmpty()) {
+            telegramMessageService.answerCallback(callbackQuery.getId(), "页码超出范围");
+            return;
+        }
 
-            // 为每个视频发送带封面的消息
-            String caption = telegramMessageService.formatVideoMessage(video);
+        boolean photoMessage = callbackQuery.getMessage() instanceof Message message && message.hasPhoto();
+        List<Video> pageVideos = result.getRecords();
+        telegramMessageService.editMessage(callbackQuery.getMessage().getChatId(),
+            callbackQuery.getMessage().getMessageId(), photoMessage, firstCoverUrl(pageVideos),
+            formatLatestPage(pageVideos, page, totalPages), latestKeyboard(page, totalPages));
+        telegramMessageService.answerCallback(callbackQuery.getId(), null);
+    }
 
+    private String firstCoverUrl(List<Video> videos) {
+        for (Video video : videos) {
             if (video.getCoverUrl() != null && !video.getCoverUrl().isEmpty()) {
-                telegramMessageService.sendPhotoWithCaption(chatId, video.getCoverUrl(), caption);
-            } else {
-                telegramMessageService.sendMarkdown(chatId, caption);
+                return video.getCoverUrl();
             }
+        }
+        return null;
+    }
 
-            // 避免发送过快
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+    private String formatLatestPage(List<Video> videos, int page, int totalPages) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("📺 *最新视频* (第 ").append(page).append("/").append(totalPages).append(" 页)\n\n");
+        for (Video video : videos) {
+            sb.append("▫️ `");
+            MarkdownEscaper.appendEscaped(sb, video.getCode());
+            sb.append("` ");
+            MarkdownEscaper.appendEscaped(sb, truncateTitle(video.getTitle()));
+            if (video.getDetailUrl() != null) {
+                sb.append(" [详情](").append(video.getDetailUrl()).append(")");
             }
+            sb.append("\n");
         }
+        return sb.toString();
+    }
 
-        // 提示翻页
+    private InlineKeyboardMarkup latestKeyboard(int page, int totalPages) {
+        List<InlineKeyboardButton> row = new ArrayList<>();
+        if (page > 1) {
+            row.add(callbackButton("« 上一页", LATEST_CALLBACK_PREFIX + (page - 1)));
+        }
+        row.add(callbackButton(page + "/" + totalPages, LATEST_NOOP_CALLBACK));
         if (page < totalPages) {
-            sendText(chatId, "💡 查看下一页: /latest " + (page + 1));
+            row.add(callbackButton("下一页 »", LATEST_CALLBACK_PREFIX + (page + 1)));
         }
+        return new InlineKeyboardMarkup(List.of(row));
+    }
+
+    private InlineKeyboardButton callbackButton(String text, String data) {
+        InlineKeyboardButton button = new InlineKeyboardButton(text);
+        button.setCallbackData(data);
+        return button;
     }
 
     /**
      * 查看状态
      */
     private void handleStatus(Long chatId) {
-        long videoCount = videoMapper.selectCount(null);
+        StatsSnapshot stats = statsService.snapshot();
+        String lastCrawl = stats.getLastCrawlAt() == null ? "尚未执行"
+            : String.format("新增 %d 个，耗时 %.1f 秒", stats.getLastCrawlNewCount(), stats.getLastCrawlDurationMs() / 1000.0);
+        String successRate = stats.getPushSuccessRate() == null ? "-"
+            : String.format("%.1f%%", stats.getPushSuccessRate() * 100);
         String status = String.format("""
             🤖 *机器人状态*
 
-            📊 视频库: %d 个
-            ⏰ 检查间隔: 15 分钟
+            📊 视频库: %d 个（今日新增 %d）
+            📤 今日推送: 成功 %d | 失败 %d | 成功率 %s
+            🕷️ 上次抓取: %s
+            ⏰ 检查间隔: %s
+            📥 爬取任务: 执行中 %d | 排队 %d | 已拒绝 %d
+            🔀 流水线排队: %s
+            👑 主节点: %s
+            💬 待处理命令: %d | 已拒绝 %d
             ✅ 运行正常
-            """, videoCount);
+            """, stats.getTotalVideos(), stats.getNewVideosToday(),
+            stats.getPushSuccessToday(), stats.getPushFailedToday(), successRate,
+            lastCrawl, formatInterval(crawlInterval),
+            crawlJobExecutor.getActiveCount(), crawlJobExecutor.getQueuedCount(), crawlJobExecutor.getRejectedCount(),
+            formatPipeline(crawlPipeline.getStatus()),
+            formatLeader(leaderElectionService.getStatus()),
+            commandDispatcher.getPendingCount(), commandDispatcher.getRejectedCount());
         telegramMessageService.sendMarkdown(chatId, status);
     }
 
+    private String formatPipeline(List<PipelineStageStatus> stages) {
+        return stages.stream()
+            .map(stage -> stageLabel(stage.getStage()) + " " + stage.getQueued() + "/" + stage.getCapacity())
+            .collect(Collectors.joining(" | "));
+    }
+
+    private String formatLeader(LeaderLeaseStatus lease) {
+        if (!lease.isEnabled()) {
+            return "未开启选主（单节点）";
+        }
+        if (lease.isLeader()) {
+            return String.format("本节点 `%s`（token %d，到期 %s）", lease.getNodeId(), lease.getFencingToken(),
+                lease.getExpiresAt() == null ? "-" : lease.getExpiresAt().toLocalTime());
+        }
+        return lease.getOwner() == null ? "暂无，本节点备用"
+            : String.format("`%s`（token %d），本节点 `%s` 备用", lease.getOwner(), lease.getFencingToken(), lease.getNodeId());
+    }
+
+    private String stageLabel(String stage) {
+        return switch (stage) {
+            case "crawl" -> "抓取";
+            case "enrich" -> "补全";
+            case "persist" -> "入库";
+            case "fan_out" -> "推送";
+            default -> stage;
+        };
+    }
+
+    private String formatInterval(long millis) {
+        long minutes = millis / 60000;
+        return minutes > 0 ? minutes + " 分钟" : millis / 1000 + " 秒";
+    }
+
     /**
      * 处理手动爬取命令
      */
@@ -419,14 +595,12 @@ public class MissavBot extends TelegramLongPollingBot {
             }
         }
 
-        sendText(chatId, String.format("⏳ 正在爬取演员「%s」的作品...", actorName));
-
         // 创建 final 变量供 lambda 使用
         final Integer finalLimit = limit;
         final ICrawlerService service = this.crawlerService;
 
-        // 异步执行爬取，避免阻塞
-        new Thread(() -> {
+        // 提交到爬取任务执行器，避免阻塞命令处理
+        submitCrawlJob(chatId, String.format("⏳ 正在爬取演员「%s」的作品...", actorName), () -> {
             try {
                 CrawlResult result = service.crawlByActor(actorName, finalLimit);
 
@@ -456,7 +630,7 @@ public class MissavBot extends TelegramLongPollingBot {
                 log.error("爬取演员作品失败", e);
                 sendText(chatId, "❌ 爬取失败：" + e.getMessage());
             }
-        }).start();
+        });
     }
 
     /**
@@ -469,13 +643,11 @@ public class MissavBot extends TelegramLongPollingBot {
         }
 
         String code = parts[1].toUpperCase();
-        sendText(chatId, String.format("⏳ 正在爬取番号「%s」...", code));
-
         // 创建 final 变量供 lambda 使用
         final ICrawlerService service = this.crawlerService;
 
-        // 异步执行爬取
-        new Thread(() -> {
+        // 提交到爬取任务执行器
+        submitCrawlJob(chatId, String.format("⏳ 正在爬取番号「%s」...", code), () -> {
             try {
                 Video video = service.crawlByCode(code);
 
@@ -490,7 +662,7 @@ public class MissavBot extends TelegramLongPollingBot {
                 log.error("爬取番号失败", e);
                 sendText(chatId, "❌ 爬取失败：" + e.getMessage());
             }
-        }).start();
+        });
     }
 
     /**
@@ -520,14 +692,12 @@ public class MissavBot extends TelegramLongPollingBot {
             }
         }
 
-        sendText(chatId, String.format("⏳ 正在搜索「%s」...", keyword));
-
         // 创建 final 变量供 lambda 使用
         final Integer finalLimit = limit;
         final ICrawlerService service = this.crawlerService;
 
-        // 异步执行爬取
-        new Thread(() -> {
+        // 提交到爬取任务执行器
+        submitCrawlJob(chatId, String.format("⏳ 正在搜索「%s」...", keyword), () -> {
             try {
                 CrawlResult result = service.crawlByKeyword(keyword, finalLimit);
 
@@ -557,7 +727,36 @@ public class MissavBot extends TelegramLongPollingBot {
                 log.error("搜索爬取失败", e);
                 sendText(chatId, "❌ 爬取失败：" + e.getMessage());
             }
-        }).start();
+        });
+    }
+
+    /**
+     * 提交手动爬取任务，被拒绝时提示用户
+     * 任务等受理提示发出后才开始执行，保证提示先于任务结果到达
+     */
+    private void submitCrawlJob(Long chatId, String acceptedText, Runnable job) {
+        CountDownLatch acknowledged = new CountDownLatch(1);
+        Runnable ordered = () -> {
+            try {
+                acknowledged.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            job.run();
+        };
+
+        switch (crawlJobExecutor.submit(chatId, ordered)) {
+            case ACCEPTED -> {
+                try {
+                    sendText(chatId, acceptedText);
+                } finally {
+                    acknowledged.countDown();
+                }
+            }
+            case CHAT_LIMIT -> sendText(chatId, "⚠️ 你已有爬取任务在进行中，请等待完成后再提交");
+            case QUEUE_FULL -> sendText(chatId, "⚠️ 爬取任务队列已满，请稍后再试");
+        }
     }
 
     /**
@@ -592,10 +791,7 @@ public class MissavBot extends TelegramLongPollingBot {
 
     private void sendText(Long chatId, String text) {
         try {
-            SendMessage message = new SendMessage();
-            message.setChatId(chatId.toString());
-            message.setText(text);
-            execute(message);
+            telegramMessageService.sendText(chatId, text);
         } catch (TelegramApiException e) {
             log.error("发送消息失败", e);
         }
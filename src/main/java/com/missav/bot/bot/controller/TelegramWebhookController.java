@@ -0,0 +1,76 @@
+package com.missav.bot.bot.controller;
+
+import com.missav.bot.bot.MissavBot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Telegram Webhook 接收接口
+ * 由内置 Web 服务器接收更新，立即返回，实际处理交给有界线程池
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+public class TelegramWebhookController {
+
+    static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final MissavBot missavBot;
+    private final ThreadPoolTaskExecutor webhookUpdateExecutor;
+
+    @Value("${telegram.webhook.secret-token:}")
+    private String secretToken;
+
+    @PostMapping("${telegram.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> receive(
+            @RequestHeader(value = SECRET_HEADER, required = false) String token,
+            @RequestBody Update update) {
+        if (!isTokenValid(token)) {
+            log.warn("Webhook 密钥校验失败，丢弃更新: updateId={}", update.getUpdateId());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        try {
+            webhookUpdateExecutor.execute(() -> handle(update));
+        } catch (TaskRejectedException e) {
+            // 返回非 2xx，Telegram 会稍后重投该更新
+            log.warn("Webhook 处理队列已满，拒绝更新: updateId={}", update.getUpdateId());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    private void handle(Update update) {
+        try {
+            missavBot.onUpdateReceived(update);
+        } catch (Exception e) {
+            log.error("处理 Webhook 更新失败: updateId={}", update.getUpdateId(), e);
+        }
+    }
+
+    /**
+     * 未配置密钥时拒绝所有请求（启动时 BotConfig 已校验，这里防止配置被绕过）
+     */
+    private boolean isTokenValid(String token) {
+        if (secretToken == null || secretToken.isBlank()) {
+            return false;
+        }
+        return token != null && MessageDigest.isEqual(
+                secretToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,143 @@
+package com.missav.bot.bot.dispatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按聊天分道的命令分发器
+ * 同一聊天的命令严格按到达顺序串行执行，不同聊天之间在虚拟线程上并行执行
+ */
+@Slf4j
+@Component
+public class ChatCommandDispatcher {
+
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Long, ChatLane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Counter rejectedCounter;
+
+    @Value("${telegram.dispatch.max-pending-per-chat:20}")
+    private int maxPendingPerChat;
+
+    public ChatCommandDispatcher(MeterRegistry meterRegistry) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-", 0).factory());
+        this.rejectedCounter = Counter.builder("bot.dispatch.rejected")
+                .description("因单个聊天待处理命令过多而被拒绝的命令数")
+                .register(meterRegistry);
+        Gauge.builder("bot.dispatch.pending", pending, AtomicInteger::get)
+                .description("等待执行的命令数")
+                .register(meterRegistry);
+        Gauge.builder("bot.dispatch.active.chats", lanes, ConcurrentHashMap::size)
+                .description("有命令在执行或等待的聊天数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交命令到聊天对应的执行通道
+     * @return 是否接受；该聊天待处理命令已达上限时返回 false
+     */
+    public boolean dispatch(Long chatId, Runnable command) {
+        boolean[] accepted = {false};
+        boolean[] start = {false};
+
+        ChatLane lane = lanes.compute(chatId, (id, existing) -> {
+            ChatLane l = existing != null ? existing : new ChatLane(id);
+            if (l.queue.size() >= maxPendingPerChat) {
+                return l;
+            }
+            l.queue.add(command);
+            accepted[0] = true;
+            if (!l.running) {
+                l.running = true;
+                start[0] = true;
+            }
+            return l;
+        });
+
+        if (!accepted[0]) {
+            rejectedCounter.increment();
+            log.warn("聊天待处理命令过多，拒绝新命令: chatId={}, pending={}", chatId, lane.queue.size());
+            return false;
+        }
+
+        pending.incrementAndGet();
+        if (start[0]) {
+            executor.execute(lane);
+        }
+        return true;
+    }
+
+    /**
+     * 等待执行的命令总数
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * 被拒绝的命令总数
+     */
+    public long getRejectedCount() {
+        return (long) rejectedCounter.count();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("命令分发器关闭超时，仍有命令未执行完");
+        }
+    }
+
+    /**
+     * 单个聊天的执行通道，队列为空时自动从映射中移除
+     */
+    private final class ChatLane implements Runnable {
+
+        private final Long chatId;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private boolean running;
+
+        private ChatLane(Long chatId) {
+            this.chatId = chatId;
+        }
+
+        @Override
+        public void run() {
+            Runnable next;
+            while ((next = pollOrRetire()) != null) {
+                pending.decrementAndGet();
+                try {
+                    next.run();
+                } catch (Exception e) {
+                    log.error("执行聊天命令失败: chatId={}", chatId, e);
+                }
+            }
+        }
+
+        private Runnable pollOrRetire() {
+            Runnable[] next = {null};
+            lanes.compute(chatId, (id, lane) -> {
+                next[0] = lane.queue.poll();
+                if (next[0] == null) {
+                    lane.running = false;
+                    return null;
+                }
+                return lane;
+            });
+            return next[0];
+        }
+    }
+}
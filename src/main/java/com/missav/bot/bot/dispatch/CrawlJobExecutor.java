@@ -0,0 +1,137 @@
+package com.missav.bot.bot.dispatch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 手动爬取任务执行器
+ * 固定并发数 + 有界队列，并限制单个聊天同时提交的任务数，避免大量 /crawl 压垮目标站点和内存
+ * 任务以阻塞 I/O 为主，工作线程使用虚拟线程
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CrawlJobExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<Long, Integer> jobsPerChat = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor pool;
+
+    @Value("${crawler.jobs.pool-size:2}")
+    private int poolSize;
+
+    @Value("${crawler.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    @Value("${crawler.jobs.per-chat-limit:2}")
+    private int perChatLimit;
+
+    /**
+     * 提交结果
+     */
+    public enum SubmitResult {
+        ACCEPTED,    // 已接受
+        CHAT_LIMIT,  // 该聊天未完成的任务已达上限
+        QUEUE_FULL   // 全局队列已满
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("crawl-job-", 1).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("crawler.jobs.queued", pool, p -> p.getQueue().size())
+                .description("排队等待的手动爬取任务数")
+                .register(meterRegistry);
+        Gauge.builder("crawler.jobs.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("正在执行的手动爬取任务数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 提交爬取任务
+     */
+    public SubmitResult submit(Long chatId, Runnable job) {
+        boolean[] allowed = {false};
+        jobsPerChat.compute(chatId, (id, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= perChatLimit) {
+                return count;
+            }
+            allowed[0] = true;
+            return current + 1;
+        });
+
+        if (!allowed[0]) {
+            reject(chatId, SubmitResult.CHAT_LIMIT);
+            return SubmitResult.CHAT_LIMIT;
+        }
+
+        try {
+            pool.execute(() -> {
+                try {
+                    job.run();
+                } finally {
+                    release(chatId);
+                }
+            });
+            return SubmitResult.ACCEPTED;
+        } catch (RejectedExecutionException e) {
+            release(chatId);
+            reject(chatId, SubmitResult.QUEUE_FULL);
+            return SubmitResult.QUEUE_FULL;
+        }
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public int getQueuedCount() {
+        return pool.getQueue().size();
+    }
+
+    /**
+     * 执行中的任务数
+     */
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * 被拒绝的任务总数
+     */
+    public long getRejectedCount() {
+        return (long) (meterRegistry.counter("crawler.jobs.rejected", "reason", SubmitResult.CHAT_LIMIT.name()).count()
+                + meterRegistry.counter("crawler.jobs.rejected", "reason", SubmitResult.QUEUE_FULL.name()).count());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void release(Long chatId) {
+        jobsPerChat.computeIfPresent(chatId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private void reject(Long chatId, SubmitResult reason) {
+        meterRegistry.counter("crawler.jobs.rejected", "reason", reason.name()).increment();
+        log.warn("拒绝手动爬取任务: chatId={}, reason={}, queued={}", chatId, reason, pool.getQueue().size());
+    }
+}
@@ -0,0 +1,35 @@
+package com.missav.bot.cluster.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 主节点租约状态
+ */
+@Value
+@Builder
+public class LeaderLeaseStatus {
+
+    /**
+     * 是否开启选主，未开启时本节点始终视为主节点
+     */
+    boolean enabled;
+
+    String nodeId;
+
+    /**
+     * 本节点当前是否为主节点
+     */
+    boolean leader;
+
+    /**
+     * 租约持有者，读取失败时为空
+     */
+    String owner;
+
+    Long fencingToken;
+
+    LocalDateTime expiresAt;
+}
@@ -0,0 +1,45 @@
+package com.missav.bot.cluster.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 租约：主节点选举（crawler）、推送节点心跳（push-node:节点ID）和推送分片归属（push-shard:分片）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("leader_lease")
+public class LeaderLease {
+
+    /**
+     * 租约名称
+     */
+    @TableId(type = IdType.INPUT)
+    private String name;
+
+    /**
+     * 当前持有者节点 ID
+     */
+    private String owner;
+
+    /**
+     * 每次换主加一，旧主节点凭旧 token 无法通过校验
+     */
+    private Long fencingToken;
+
+    /**
+     * 租约到期时间（数据库时间）
+     */
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime renewedAt;
+}
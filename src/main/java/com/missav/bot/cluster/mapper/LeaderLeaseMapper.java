@@ -0,0 +1,80 @@
+package com.missav.bot.cluster.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.missav.bot.cluster.entity.LeaderLease;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 租约（主节点选举、推送分片归属）
+ * 租约时间统一使用数据库时间，不受各节点时钟偏差影响
+ */
+@Mapper
+public interface LeaderLeaseMapper extends BaseMapper<LeaderLease> {
+
+    @Insert("INSERT IGNORE INTO leader_lease (name, fencing_token) VALUES (#{name}, 0)")
+    int insertIfAbsent(@Param("name") String name);
+
+    /**
+     * 续约自己的租约，或接管已过期的租约
+     * 换主时 fencing_token 加一；赋值按顺序执行，fencing_token 必须放在 owner 之前
+     */
+    @Update("UPDATE leader_lease SET " +
+            "fencing_token = CASE WHEN owner = #{owner} THEN fencing_token ELSE fencing_token + 1 END, " +
+            "owner = #{owner}, " +
+            "expires_at = TIMESTAMPADD(SECOND, #{leaseSeconds}, NOW()), " +
+            "renewed_at = NOW() " +
+            "WHERE name = #{name} AND (owner = #{owner} OR owner IS NULL OR expires_at IS NULL OR expires_at <= NOW())")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("leaseSeconds") long leaseSeconds);
+
+    /**
+     * 主动让出租约（停机时调用），其他节点下次心跳即可接管
+     */
+    @Update("UPDATE leader_lease SET expires_at = NOW() WHERE name = #{name} AND owner = #{owner}")
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+    /**
+     * 校验持有者和 fencing token 是否仍然有效
+     */
+    @Select("SELECT COUNT(*) > 0 FROM leader_lease WHERE name = #{name} AND owner = #{owner} " +
+            "AND fencing_token = #{fencingToken} AND expires_at > NOW()")
+    boolean isHeld(@Param("name") String name, @Param("owner") String owner, @Param("fencingToken") long fencingToken);
+
+    /**
+     * 读取 fencing token 并锁定租约行到事务结束，期间其他节点无法接管
+     */
+    @Select("SELECT fencing_token FROM leader_lease WHERE name = #{name} FOR UPDATE")
+    Long selectFencingTokenForUpdate(@Param("name") String name);
+
+    /**
+     * 租约剩余秒数（已过期为负数）
+     */
+    @Select("SELECT TIMESTAMPDIFF(SECOND, NOW(), expires_at) FROM leader_lease WHERE name = #{name}")
+    Long selectRemainingSeconds(@Param("name") String name);
+
+    /**
+     * 名称以 prefix 开头的未过期租约数
+     */
+    @Select("SELECT COUNT(*) FROM leader_lease WHERE name LIKE CONCAT(#{prefix}, '%') AND expires_at > NOW()")
+    int countActive(@Param("prefix") String prefix);
+
+    /**
+     * 名称以 prefix 开头、无人持有或已过期的租约
+     */
+    @Select("SELECT name FROM leader_lease WHERE name LIKE CONCAT(#{prefix}, '%') " +
+            "AND (owner IS NULL OR expires_at IS NULL OR expires_at <= NOW()) ORDER BY name")
+    List<String> selectAvailableNames(@Param("prefix") String prefix);
+
+    /**
+     * 删除过期超过 staleSeconds 的租约（如已下线节点的心跳）
+     */
+    @Delete("DELETE FROM leader_lease WHERE name LIKE CONCAT(#{prefix}, '%') " +
+            "AND expires_at < TIMESTAMPADD(SECOND, -#{staleSeconds}, NOW())")
+    int deleteStale(@Param("prefix") String prefix, @Param("staleSeconds") long staleSeconds);
+}
@@ -0,0 +1,40 @@
+package com.missav.bot.cluster.service;
+
+import com.missav.bot.cluster.dto.LeaderLeaseStatus;
+
+/**
+ * 基于数据库租约的主节点选举
+ * 多副本部署时只有主节点执行定时抓取和推送，主节点宕机后其他节点在租约到期时接管
+ */
+public interface ILeaderElectionService {
+
+    /**
+     * 本节点是否持有未过期的租约（只看本地状态，不访问数据库）
+     */
+    boolean isLeader();
+
+    /**
+     * 到数据库核对本节点的 fencing token 是否仍然有效
+     * 用于执行有副作用的操作之前，防止已被取代但尚未察觉的旧主节点继续执行
+     */
+    boolean holdsLease();
+
+    /**
+     * 本节点当前任期的 fencing token，决定执行主节点专属的写入时取得，随写入传给 {@link #checkFencingToken}
+     * @return 未开启选举时为 null（不校验）；不是主节点时为 -1，不会通过校验
+     */
+    Long getFencingToken();
+
+    /**
+     * 在当前事务内锁定租约行并核对 fencing token，锁持有到事务结束：
+     * 校验通过后新主节点要等本事务提交才能接管，旧主节点暂停后恢复也无法再写入
+     * 必须在事务内、写入之前调用；token 为 null 时不校验
+     * @throws IllegalStateException 租约已被其他任期持有，事务回滚
+     */
+    void checkFencingToken(Long fencingToken);
+
+    /**
+     * 获取租约状态
+     */
+    LeaderLeaseStatus getStatus();
+}
@@ -0,0 +1,217 @@
+package com.missav.bot.cluster.service.impl;
+
+import com.missav.bot.cluster.dto.LeaderLeaseStatus;
+import com.missav.bot.cluster.entity.LeaderLease;
+import com.missav.bot.cluster.mapper.LeaderLeaseMapper;
+import com.missav.bot.cluster.service.ILeaderElectionService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * 主节点选举实现
+ * 主节点每个心跳周期续约一次；备用节点按租约剩余时间安排下次尝试，租约一到期就接管，
+ * 因此主节点宕机后最迟一个租约周期内完成切换
+ * 本地有效期从发起续约前开始计算，比数据库中的到期时间略早，续约失败（如数据库不可用）时本节点先于其他节点放弃主节点身份
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderElectionServiceImpl implements ILeaderElectionService {
+
+    private static final String LEASE_NAME = "crawler";
+
+    /**
+     * 不是主节点时返回的 token，token 从 0 开始递增，不会与任何任期匹配
+     */
+    private static final long NO_FENCING_TOKEN = -1;
+
+    private final LeaderLeaseMapper leaderLeaseMapper;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${cluster.leader-election.enabled:false}")
+    private boolean enabled;
+
+    @Value("${cluster.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${cluster.leader-election.lease-duration:30s}")
+    private Duration leaseDuration;
+
+    @Value("${cluster.leader-election.heartbeat-interval:10s}")
+    private Duration heartbeatInterval;
+
+    private String nodeId;
+
+    /**
+     * 当前任期，非主节点时为空
+     */
+    private volatile Term term;
+
+    private volatile boolean running;
+
+    private record Term(long fencingToken, long deadlineNanos) {
+    }
+
+    @PostConstruct
+    public void init() {
+        nodeId = configuredNodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : configuredNodeId;
+        if (!enabled) {
+            return;
+        }
+        if (leaseDuration.toSeconds() < 2 || heartbeatInterval.multipliedBy(2).compareTo(leaseDuration) > 0) {
+            throw new IllegalStateException("cluster.leader-election.lease-duration 至少为 2 秒且不小于两倍心跳间隔");
+        }
+        try {
+            leaderLeaseMapper.insertIfAbsent(LEASE_NAME);
+        } catch (Exception e) {
+            log.error("初始化主节点租约失败（请确认已执行 docs/sql/upgrade.sql）", e);
+        }
+        running = true;
+        log.info("已开启主节点选举，本节点: {}，租约 {} 秒，心跳 {} 秒",
+                nodeId, leaseDuration.toSeconds(), heartbeatInterval.toSeconds());
+        heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (term == null) {
+            return;
+        }
+        term = null;
+        try {
+            leaderLeaseMapper.release(LEASE_NAME, nodeId);
+            log.info("已让出主节点租约");
+        } catch (Exception e) {
+            log.warn("让出主节点租约失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isLeader() {
+        if (!enabled) {
+            return true;
+        }
+        Term current = term;
+        return current != null && System.nanoTime() - current.deadlineNanos() < 0;
+    }
+
+    @Override
+    public boolean holdsLease() {
+        if (!enabled) {
+            return true;
+        }
+        Term current = term;
+        if (current == null || !isLeader()) {
+            return false;
+        }
+        try {
+            return leaderLeaseMapper.isHeld(LEASE_NAME, nodeId, current.fencingToken());
+        } catch (Exception e) {
+            log.warn("校验主节点租约失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Long getFencingToken() {
+        if (!enabled) {
+            return null;
+        }
+        Term current = term;
+        return current != null ? current.fencingToken() : NO_FENCING_TOKEN;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void checkFencingToken(Long fencingToken) {
+        if (fencingToken == null) {
+            return;
+        }
+        Long current = leaderLeaseMapper.selectFencingTokenForUpdate(LEASE_NAME);
+        if (!Objects.equals(current, fencingToken)) {
+            throw new IllegalStateException("主节点租约已被接管 (fencing token " + fencingToken + " -> " + current + ")");
+        }
+    }
+
+    @Override
+    public LeaderLeaseStatus getStatus() {
+        LeaderLeaseStatus.LeaderLeaseStatusBuilder status = LeaderLeaseStatus.builder()
+                .enabled(enabled)
+                .nodeId(nodeId)
+                .leader(isLeader());
+        if (!enabled) {
+            return status.build();
+        }
+        try {
+            LeaderLease lease = leaderLeaseMapper.selectById(LEASE_NAME);
+            if (lease != null) {
+                status.owner(lease.getOwner())
+                        .fencingToken(lease.getFencingToken())
+                        .expiresAt(lease.getExpiresAt());
+            }
+        } catch (Exception e) {
+            log.warn("读取主节点租约失败: {}", e.getMessage());
+        }
+        return status.build();
+    }
+
+    /**
+     * 续约或尝试接管，并安排下一次心跳
+     */
+    private void heartbeat() {
+        if (!running) {
+            return;
+        }
+        Duration next = heartbeatInterval;
+        try {
+            next = renew();
+        } catch (Exception e) {
+            log.warn("主节点租约续约失败: {}", e.getMessage());
+        } finally {
+            if (running) {
+                taskScheduler.schedule(this::heartbeat, Instant.now().plus(next));
+            }
+        }
+    }
+
+    /**
+     * @return 距下次心跳的时间
+     */
+    private Duration renew() {
+        long deadline = System.nanoTime() + leaseDuration.toNanos();
+        if (leaderLeaseMapper.acquire(LEASE_NAME, nodeId, leaseDuration.toSeconds()) > 0) {
+            LeaderLease lease = leaderLeaseMapper.selectById(LEASE_NAME);
+            Term previous = term;
+            term = new Term(lease.getFencingToken(), deadline);
+            if (previous == null || previous.fencingToken() != lease.getFencingToken()) {
+                log.info("本节点成为主节点 (fencing token {})", lease.getFencingToken());
+            }
+            return heartbeatInterval;
+        }
+
+        if (term != null) {
+            term = null;
+            log.warn("本节点已失去主节点身份");
+        }
+        // 租约到期后立即尝试接管
+        Long remaining = leaderLeaseMapper.selectRemainingSeconds(LEASE_NAME);
+        if (remaining == null) {
+            return heartbeatInterval;
+        }
+        Duration untilExpiry = Duration.ofSeconds(Math.max(1, remaining + 1));
+        return untilExpiry.compareTo(heartbeatInterval) < 0 ? untilExpiry : heartbeatInterval;
+    }
+}
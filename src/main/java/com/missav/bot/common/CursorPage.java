@@ -0,0 +1,40 @@
+package com.missav.bot.common;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果（keyset 分页）
+ * 下一页请求时将 nextCursor 作为 cursor 参数传回，无论翻到多深每页开销相同
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    private List<T> records;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private Long nextCursor;
+
+    private boolean hasMore;
+
+    /**
+     * 由多查询一条的结果构建分页
+     * @param rows 按游标列倒序查询的 size + 1 条记录
+     * @param size 每页数量
+     * @param cursorOf 取游标值的方法
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Long> cursorOf) {
+        CursorPage<T> page = new CursorPage<>();
+        page.setHasMore(rows.size() > size);
+        page.setRecords(page.isHasMore() ? rows.subList(0, size) : rows);
+        if (page.isHasMore()) {
+            page.setNextCursor(cursorOf.apply(rows.get(size - 1)));
+        }
+        return page;
+    }
+}
@@ -3,17 +3,57 @@ package com.missav.bot.common.config;
 import com.missav.bot.bot.MissavBot;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+import java.util.List;
+
 @Slf4j
 @Configuration
 public class BotConfig {
 
+    /**
+     * Webhook 模式下允许接收的更新类型
+     */
+    public static final List<String> ALLOWED_UPDATES = List.of("message", "callback_query");
+
+    /**
+     * Bot 发送请求的连接数
+     * telegrambots 用 Apache HttpClient 的默认连接池（每个地址 2 个连接），DefaultBotOptions 无法修改，maxThreads 也不影响
+     */
+    public static final int TELEGRAM_CONNECTIONS = 2;
+
+    @Value("${telegram.bot.base-url:https://api.telegram.org/bot}")
+    private String baseUrl;
+
+    @Value("${telegram.bot.mode:polling}")
+    private String mode;
+
+    @Value("${cluster.leader-election.enabled:false}")
+    private boolean leaderElectionEnabled;
+
+    @Value("${telegram.webhook.url:}")
+    private String webhookUrl;
+
+    @Value("${telegram.webhook.secret-token:}")
+    private String webhookSecretToken;
+
+    @Value("${telegram.webhook.max-connections:40}")
+    private int webhookMaxConnections;
+
+    @Value("${telegram.webhook.worker-threads:4}")
+    private int webhookWorkerThreads;
+
+    @Value("${telegram.webhook.queue-capacity:200}")
+    private int webhookQueueCapacity;
+
     @Value("${telegram.proxy.enabled:false}")
     private boolean proxyEnabled;
 
@@ -30,6 +70,7 @@ public class BotConfig {
         // 设置基本选项
         options.setGetUpdatesTimeout(75);  // 增加轮询超时到 75 秒
         options.setMaxThreads(1);  // 减少线程数
+        options.setBaseUrl(baseUrl);  // 测试时可指向本地假 Telegram 服务
 
         if (proxyEnabled) {
             log.info("启用代理: {}:{}", proxyHost, proxyPort);
@@ -43,16 +84,73 @@ public class BotConfig {
         return options;
     }
 
+    /**
+     * 多副本部署时只能用 Webhook：同一 Bot 同时只允许一个 getUpdates 连接，其他副本会收到 409 Conflict
+     */
     @Bean
     public TelegramBotsApi telegramBotsApi(MissavBot missavBot) throws TelegramApiException {
+        if (leaderElectionEnabled && !isWebhookMode() && !"none".equalsIgnoreCase(mode)) {
+            throw new IllegalStateException("开启 cluster.leader-election（多副本部署）时 telegram.bot.mode 必须为 webhook");
+        }
         TelegramBotsApi botsApi = new TelegramBotsApi(DefaultBotSession.class);
         try {
-            botsApi.registerBot(missavBot);
-            log.info("Telegram Bot 注册成功");
+            if (isWebhookMode()) {
+                registerWebhook(missavBot);
+            } else if ("none".equalsIgnoreCase(mode)) {
+                // 离线/压测环境只发送消息，不接收更新
+                log.info("Telegram Bot 未注册更新接收（none 模式）");
+            } else {
+                // 长轮询注册时会自动清除已设置的 Webhook
+                botsApi.registerBot(missavBot);
+                log.info("Telegram Bot 注册成功（长轮询模式）");
+            }
         } catch (TelegramApiException e) {
             log.error("Telegram Bot 注册失败", e);
             throw e;
         }
         return botsApi;
     }
+
+    /**
+     * Webhook 更新处理线程池（虚拟线程 + 有界队列，队列满时拒绝，由 Telegram 稍后重投）
+     */
+    @Bean
+    @ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+    public ThreadPoolTaskExecutor webhookUpdateExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(webhookWorkerThreads);
+        executor.setMaxPoolSize(webhookWorkerThreads);
+        executor.setQueueCapacity(webhookQueueCapacity);
+        executor.setThreadFactory(Thread.ofVirtual().name("webhook-", 1).factory());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    private boolean isWebhookMode() {
+        return "webhook".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Webhook 地址是公开的，必须配置密钥，否则任何人都能伪造更新（如以任意聊天身份执行 /crawl、/subscribe）
+     * 不随机生成：多个副本各自生成会互相覆盖
+     */
+    private void registerWebhook(MissavBot missavBot) throws TelegramApiException {
+        if (webhookUrl == null || webhookUrl.isBlank()) {
+            throw new IllegalStateException("Webhook 模式需要配置 telegram.webhook.url");
+        }
+        if (webhookSecretToken == null || webhookSecretToken.isBlank()) {
+            throw new IllegalStateException("Webhook 模式需要配置 telegram.webhook.secret-token（环境变量 BOT_WEBHOOK_SECRET）");
+        }
+
+        SetWebhook setWebhook = SetWebhook.builder()
+                .url(webhookUrl)
+                .maxConnections(webhookMaxConnections)
+                .allowedUpdates(ALLOWED_UPDATES)
+                .secretToken(webhookSecretToken)
+                .build();
+
+        missavBot.execute(setWebhook);
+        log.info("Telegram Bot 注册成功（Webhook 模式）: {}", webhookUrl);
+    }
 }
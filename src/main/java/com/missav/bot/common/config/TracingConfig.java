@@ -0,0 +1,24 @@
+package com.missav.bot.common.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 链路追踪配置
+ * 配置 management.otlp.tracing.endpoint 后 span 导出到 OTLP 收集器（由 Spring Boot 自动配置）
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * 没有收集器时将 span 写入应用日志，tracing.log-spans=true 开启
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.log-spans", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
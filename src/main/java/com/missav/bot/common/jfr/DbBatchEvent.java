@@ -0,0 +1,28 @@
+package com.missav.bot.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 批量写库
+ */
+@Name("missav.DbBatch")
+@Label("DB Batch")
+@Category({"MissAV Bot", "Database"})
+@Description("一批数据库写入")
+public class DbBatchEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Rows")
+    @Description("提交的行数")
+    public int rows;
+
+    @Label("Affected")
+    @Description("实际写入的行数")
+    public int affected;
+}
@@ -0,0 +1,196 @@
+package com.missav.bot.common.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 按需 JFR 录制，默认关闭（management.endpoint.jfr.enabled=true 开启）
+ * POST /actuator/jfr {"duration":"5m","maxSize":"50MB","settings":"profile"} 开始录制；
+ * DELETE /actuator/jfr 停止；GET /actuator/jfr 查看状态；GET /actuator/jfr/download 下载 .jfr 文件（录制中则导出当前快照）
+ * 时长与大小都有上限，同一时间只允许一个录制，磁盘上只保留最近一次的文件
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "jfr", enableByDefault = false)
+public class JfrRecordingEndpoint implements DisposableBean {
+
+    private static final String RECORDING_NAME = "missav-bot";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private final String defaultSettings;
+
+    private Recording recording;
+    private Path file;
+    private String settings;
+
+    public JfrRecordingEndpoint(@Value("${jfr.recording.directory:${java.io.tmpdir}}") Path directory,
+                                @Value("${jfr.recording.default-duration:5m}") Duration defaultDuration,
+                                @Value("${jfr.recording.max-duration:30m}") Duration maxDuration,
+                                @Value("${jfr.recording.max-size:100MB}") DataSize maxSize,
+                                @Value("${jfr.recording.settings:default}") String defaultSettings) {
+        this.directory = directory;
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.defaultSettings = defaultSettings;
+    }
+
+    @ReadOperation
+    public synchronized JfrRecordingStatus status() {
+        return status(null);
+    }
+
+    /**
+     * 开始录制，时长和大小超过上限时按上限处理
+     * @param settings JDK 内置配置：default（开销约 1%）或 profile（采样更密，约 2%）
+     */
+    @WriteOperation
+    public synchronized WebEndpointResponse<JfrRecordingStatus> start(@Nullable Duration duration,
+                                                                      @Nullable DataSize maxSize,
+                                                                      @Nullable String settings) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(status("已有录制在进行中"), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        String settingsName = settings != null ? settings : defaultSettings;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>(status("无效的 JFR 配置: " + settingsName),
+                    WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+
+        Duration boundedDuration = min(duration != null ? duration : defaultDuration, maxDuration);
+        long boundedSize = Math.min(maxSize != null ? maxSize.toBytes() : this.maxSize.toBytes(),
+                this.maxSize.toBytes());
+        Path target = directory.resolve(RECORDING_NAME + "-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+
+        try {
+            discard();
+            Recording newRecording = new Recording(configuration);
+            newRecording.setName(RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setDuration(boundedDuration);
+            newRecording.setMaxSize(boundedSize);
+            newRecording.setDestination(target);
+            newRecording.start();
+            this.recording = newRecording;
+            this.file = target;
+            this.settings = settingsName;
+        } catch (IOException e) {
+            log.error("启动 JFR 录制失败", e);
+            return new WebEndpointResponse<>(status("启动失败: " + e.getMessage()),
+                    WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+
+        log.info("JFR 录制已开始: settings={}, duration={}, maxSize={}MB, file={}",
+                settingsName, boundedDuration, boundedSize / 1024 / 1024, target);
+        return new WebEndpointResponse<>(status(null));
+    }
+
+    /**
+     * 停止录制并写出文件，录制已到时自动停止时直接返回状态
+     */
+    @DeleteOperation
+    public synchronized JfrRecordingStatus stop() {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            log.info("JFR 录制已停止: {}", file);
+        }
+        return status(null);
+    }
+
+    /**
+     * 下载录制文件，录制中时导出当前已录制的数据
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> download(@Selector String action) {
+        if (!"download".equals(action) || recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                Path snapshot = directory.resolve(RECORDING_NAME + "-snapshot.jfr");
+                recording.dump(snapshot);
+                return new WebEndpointResponse<>(new FileSystemResource(snapshot));
+            }
+            if (file != null && Files.exists(file)) {
+                return new WebEndpointResponse<>(new FileSystemResource(file));
+            }
+        } catch (IOException e) {
+            log.error("导出 JFR 录制失败", e);
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    /**
+     * 关闭上一次录制并删除其文件，避免占用磁盘
+     */
+    private void discard() throws IOException {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        if (file != null) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory.resolve(RECORDING_NAME + "-snapshot.jfr"));
+            file = null;
+        }
+    }
+
+    private JfrRecordingStatus status(String message) {
+        if (recording == null) {
+            return JfrRecordingStatus.builder().state("NONE").message(message).build();
+        }
+        return JfrRecordingStatus.builder()
+                .state(recording.getState().name())
+                .settings(settings)
+                .startTime(recording.getStartTime())
+                .stopTime(recording.getStopTime())
+                .duration(recording.getDuration())
+                .maxSize(recording.getMaxSize())
+                .file(file != null ? file.toString() : null)
+                .message(message)
+                .build();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
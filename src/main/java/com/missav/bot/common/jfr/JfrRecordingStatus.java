@@ -0,0 +1,41 @@
+package com.missav.bot.common.jfr;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 当前（或最近一次）JFR 录制的状态
+ */
+@Value
+@Builder
+public class JfrRecordingStatus {
+
+    /**
+     * NEW / DELAYED / RUNNING / STOPPED / CLOSED，从未录制时为 NONE
+     */
+    String state;
+
+    String settings;
+    Instant startTime;
+    Instant stopTime;
+
+    /**
+     * 录制时长上限，到时自动停止
+     */
+    Duration duration;
+
+    /**
+     * 录制数据大小上限（字节），超出后丢弃最早的数据
+     */
+    long maxSize;
+
+    /**
+     * 停止后写出的 .jfr 文件
+     */
+    String file;
+
+    String message;
+}
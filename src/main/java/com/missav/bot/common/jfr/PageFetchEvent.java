@@ -0,0 +1,32 @@
+package com.missav.bot.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 页面抓取，只计 HTTP 请求本身，不含请求前的随机延迟
+ */
+@Name("missav.PageFetch")
+@Label("Page Fetch")
+@Category({"MissAV Bot", "Crawler"})
+@Description("一次 HTTP 页面抓取")
+public class PageFetchEvent extends Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("Page Type")
+    public String pageType;
+
+    @Label("HTTP Status")
+    @Description("网络异常时为 -1")
+    public int status;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,27 @@
+package com.missav.bot.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 页面解析
+ */
+@Name("missav.PageParse")
+@Label("Page Parse")
+@Category({"MissAV Bot", "Crawler"})
+@Description("一次列表页或详情页解析")
+public class PageParseEvent extends Event {
+
+    @Label("Page Type")
+    public String pageType;
+
+    @Label("Strategy")
+    @Description("最终命中的解析方式")
+    public String strategy;
+
+    @Label("Videos")
+    public int videos;
+}
@@ -0,0 +1,26 @@
+package com.missav.bot.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Selenium 无头浏览器会话（启动浏览器到关闭）
+ */
+@Name("missav.SeleniumSession")
+@Label("Selenium Session")
+@Category({"MissAV Bot", "Crawler"})
+@Description("一次 Selenium 降级抓取")
+public class SeleniumSessionEvent extends Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("Page Type")
+    public String pageType;
+
+    @Label("Success")
+    public boolean success;
+}
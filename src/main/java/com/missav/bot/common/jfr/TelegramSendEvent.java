@@ -0,0 +1,26 @@
+package com.missav.bot.common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Telegram Bot API 调用（每次重试单独一个事件）
+ */
+@Name("missav.TelegramSend")
+@Label("Telegram Send")
+@Category({"MissAV Bot", "Telegram"})
+@Description("一次 Bot API 发送请求")
+public class TelegramSendEvent extends Event {
+
+    @Label("Method")
+    public String method;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Attempt")
+    public int attempt;
+}
@@ -0,0 +1,37 @@
+package com.missav.bot.common.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 逗号分隔标签（演员、标签字段）工具
+ */
+public final class LabelUtils {
+
+    private LabelUtils() {
+    }
+
+    /**
+     * 按逗号拆分并去除首尾空白，忽略空项
+     */
+    public static List<String> split(String labels) {
+        if (labels == null || labels.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        int length = labels.length();
+        while (start <= length) {
+            int comma = labels.indexOf(',', start);
+            int end = comma < 0 ? length : comma;
+            String label = labels.substring(start, end).trim();
+            if (!label.isEmpty()) {
+                result.add(label);
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package com.missav.bot.crawler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 爬虫各阶段指标（抓取、解析、入库），通过 /actuator/prometheus 暴露
+ */
+@Component
+@RequiredArgsConstructor
+public class CrawlerMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 记录一次成功返回的 HTTP 请求（含非 2xx 状态）
+     */
+    public void recordFetch(PageType pageType, int status, long bytes, long nanos) {
+        String outcome = status >= 200 && status < 300 ? "success" : "http_error";
+        fetchTimer(pageType, outcome).record(nanos, TimeUnit.NANOSECONDS);
+        Counter.builder("crawler.http.responses")
+                .description("按状态码统计的 HTTP 响应数")
+                .tag("page_type", pageType.tag())
+                .tag("status", String.valueOf(status))
+                .register(meterRegistry)
+                .increment();
+        if (bytes > 0) {
+            DistributionSummary.builder("crawler.download")
+                    .description("下载的页面大小（解压后）")
+                    .baseUnit("bytes")
+                    .tag("page_type", pageType.tag())
+                    .register(meterRegistry)
+                    .record(bytes);
+        }
+    }
+
+    /**
+     * 记录一次网络异常（超时、连接失败等）
+     */
+    public void recordFetchError(PageType pageType, long nanos) {
+        fetchTimer(pageType, "io_error").record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次页面解析耗时及最终命中的解析方式
+     */
+    public void recordParse(PageType pageType, ParseStrategy strategy, long nanos) {
+        Timer.builder("crawler.parse")
+                .description("页面解析耗时")
+                .tag("page_type", pageType.tag())
+                .tag("strategy", strategy.tag())
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次 Selenium 降级及其结果
+     */
+    public void recordSeleniumFallback(PageType pageType, boolean success) {
+        Counter.builder("crawler.selenium.fallback")
+                .description("HTTP 抓取或解析失败后降级到 Selenium 的次数")
+                .tag("page_type", pageType.tag())
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次抓取结果的新增、重复、无效视频数
+     */
+    public void recordVideos(int newCount, int duplicateCount, int invalidCount) {
+        videoCounter("new").increment(newCount);
+        videoCounter("duplicate").increment(duplicateCount);
+        videoCounter("invalid").increment(invalidCount);
+    }
+
+    private Timer fetchTimer(PageType pageType, String outcome) {
+        return Timer.builder("crawler.fetch")
+                .description("页面抓取耗时（不含请求前的随机延迟）")
+                .tag("page_type", pageType.tag())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter videoCounter(String result) {
+        return Counter.builder("crawler.videos")
+                .description("抓取到的视频数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 页面类型
+     */
+    public enum PageType {
+        WARMUP,   // Cookie 预热
+        LIST,     // 最新视频列表
+        ACTRESS,  // 演员作品列表
+        SEARCH,   // 关键词搜索结果
+        DETAIL;   // 视频详情页
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * 列表页解析方式，按尝试顺序排列
+     */
+    public enum ParseStrategy {
+        JSON,       // script 中的 JSON 数据
+        SELECTOR,   // 视频卡片选择器
+        DIV_GROUP,  // div.group
+        ANCHOR,     // 含番号的链接
+        SELENIUM,   // 无头浏览器渲染后解析
+        DETAIL,     // 详情页解析
+        NONE;       // 未解析出视频
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.missav.bot.crawler;
 
+import com.missav.bot.common.jfr.PageFetchEvent;
+import com.missav.bot.common.jfr.PageParseEvent;
+import com.missav.bot.common.jfr.SeleniumSessionEvent;
+import com.missav.bot.crawler.CrawlerMetrics.PageType;
+import com.missav.bot.crawler.CrawlerMetrics.ParseStrategy;
 import com.missav.bot.video.entity.Video;
 import io.github.bonigarcia.wdm.WebDriverManager;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import org.jsoup.Jsoup;
@@ -40,6 +47,8 @@ public class MissavCrawler {
     private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)\\s*分");
 
     private final OkHttpClient httpClient;
+    private final CrawlerMetrics metrics;
+    private final ObservationRegistry observationRegistry;
     private final Map<String, List<Cookie>> cookieStore = new HashMap<>();
     private volatile LocalDateTime cookieInitTime = null;  // Cookie 初始化时间
     private static final Duration COOKIE_EXPIRE_DURATION = Duration.ofMinutes(10);  // Cookie 有效期10分钟
@@ -47,7 +56,9 @@ public class MissavCrawler {
     @Value("${crawler.user-agent:Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36}")
     private String userAgent;
 
-    public MissavCrawler() {
+    public MissavCrawler(CrawlerMetrics metrics, ObservationRegistry observationRegistry) {
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
         this.httpClient = new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS)
@@ -83,6 +94,12 @@ public class MissavCrawler {
             return;
         }
 
+        Observation.createNotStarted("crawler.warmup", observationRegistry)
+                .contextualName("cookie-warmup")
+                .observe(this::refreshCookies);
+    }
+
+    private void refreshCookies() {
         try {
             if (cookieStore.isEmpty()) {
                 log.info("初始化 Cookie（预热会话）...");
@@ -93,7 +110,7 @@ public class MissavCrawler {
 
             // 网站需要多次请求才能建立有效会话，进行 2-3 次预热请求
             for (int i = 1; i <= 3; i++) {
-                fetchHtml(NEW_VIDEOS_URL + "?page=2");
+                fetchHtml(NEW_VIDEOS_URL + "?page=2", PageType.WARMUP);
                 if (i < 3) {
                     Thread.sleep(1000); // 请求间隔 1 秒
                 }
@@ -126,13 +143,13 @@ public class MissavCrawler {
                 String url = page == 1 ? NEW_VIDEOS_URL : NEW_VIDEOS_URL + "?page=" + page;
                 log.info("正在抓取: {}", url);
 
-                String html = fetchHtml(url);
+                String html = fetchHtml(url, PageType.LIST);
                 if (html == null) {
                     log.warn("获取页面失败: {}", url);
                     continue;
                 }
 
-                List<Video> pageVideos = parseVideoList(html);
+                List<Video> pageVideos = parseVideoList(html, PageType.LIST);
                 videos.addAll(pageVideos);
                 log.info("第{}页抓取到{}个视频", page, pageVideos.size());
 
@@ -154,10 +171,12 @@ public class MissavCrawler {
     public Video crawlVideoDetail(String detailUrl) {
         try {
             log.info("正在抓取视频详情: {}", detailUrl);
-            String html = fetchHtml(detailUrl);
+            String html = fetchHtml(detailUrl, PageType.DETAIL);
             if (html == null) {
                 log.warn("HTTP 请求失败，降级使用 Selenium");
-                return crawlVideoDetailWithSelenium(detailUrl);
+                Video video = crawlVideoDetailWithSelenium(detailUrl);
+                metrics.recordSeleniumFallback(PageType.DETAIL, video != null);
+                return video;
             }
             return parseVideoDetail(html, detailUrl);
         } catch (Exception e) {
@@ -170,6 +189,9 @@ public class MissavCrawler {
      * 使用 Selenium 抓取视频详情
      */
     private Video crawlVideoDetailWithSelenium(String url) {
+        SeleniumSessionEvent event = new SeleniumSessionEvent();
+        event.begin();
+        boolean success = false;
         WebDriver driver = null;
         try {
             WebDriverManager.chromedriver().setup();
@@ -189,7 +211,9 @@ public class MissavCrawler {
             Thread.sleep(2000);
 
             String renderedHtml = driver.getPageSource();
-            return parseVideoDetail(renderedHtml, url);
+            Video video = parseVideoDetail(renderedHtml, url);
+            success = video != null;
+            return video;
 
         } catch (Exception e) {
             log.error("Selenium 抓取视频详情失败: {}", url, e);
@@ -198,10 +222,19 @@ public class MissavCrawler {
             if (driver != null) {
                 driver.quit();
             }
+            commitEvent(event, url, PageType.DETAIL, success);
         }
     }
 
-    private String fetchHtml(String url) {
+    private String fetchHtml(String url, PageType pageType) {
+        return Observation.createNotStarted("crawler.http", observationRegistry)
+                .contextualName("fetch-" + pageType.tag())
+                .lowCardinalityKeyValue("page_type", pageType.tag())
+                .highCardinalityKeyValue("url", url)
+                .observe(() -> doFetchHtml(url, pageType));
+    }
+
+    private String doFetchHtml(String url, PageType pageType) {
         // 添加随机延迟，避免请求过快
         try {
             Thread.sleep(1000 + (long)(Math.random() * 2000)); // 1-3秒随机延迟
@@ -220,17 +253,30 @@ public class MissavCrawler {
                 .header("Cache-Control", "max-age=0")
                 .build();
 
+        PageFetchEvent event = new PageFetchEvent();
+        event.begin();
+        long start = System.nanoTime();
         try (Response response = httpClient.newCall(request).execute()) {
             log.debug("HTTP 响应状态: {} - {}", response.code(), response.message());
             log.debug("最终 URL (重定向后): {}", response.request().url());
 
             if (!response.isSuccessful()) {
+                metrics.recordFetch(pageType, response.code(), 0, System.nanoTime() - start);
+                commitEvent(event, url, pageType, response.code(), 0);
                 log.warn("请求失败: {} - {}", url, response.code());
                 return null;
             }
 
-            String html = response.body() != null ? response.body().string() : null;
-            if (html != null) {
+            ResponseBody body = response.body();
+            byte[] bytes = body != null ? body.bytes() : null;
+            metrics.recordFetch(pageType, response.code(), bytes != null ? bytes.length : 0, System.nanoTime() - start);
+            commitEvent(event, url, pageType, response.code(), bytes != null ? bytes.length : 0);
+
+            String html = null;
+            if (bytes != null) {
+                MediaType contentType = body.contentType();
+                html = new String(bytes, contentType != null
+                        ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8);
                 log.debug("HTML 长度: {} 字符", html.length());
                 log.debug("HTML 前500字符: {}", html.substring(0, Math.min(500, html.length())));
             } else {
@@ -239,6 +285,8 @@ public class MissavCrawler {
 
             return html;
         } catch (IOException e) {
+            metrics.recordFetchError(pageType, System.nanoTime() - start);
+            commitEvent(event, url, pageType, -1, 0);
             log.error("请求异常: {}", url, e);
             return null;
         }
@@ -247,7 +295,10 @@ public class MissavCrawler {
     /**
      * 解析视频列表页
      */
-    private List<Video> parseVideoList(String html) {
+    private List<Video> parseVideoList(String html, PageType pageType) {
+        PageParseEvent event = new PageParseEvent();
+        event.begin();
+        long start = System.nanoTime();
         List<Video> videos = new ArrayList<>();
         Document doc = Jsoup.parse(html);
 
@@ -258,6 +309,8 @@ public class MissavCrawler {
         List<Video> jsonVideos = extractVideosFromJson(doc);
         if (!jsonVideos.isEmpty()) {
             log.info("✓ JSON 提取成功，获得 {} 个视频", jsonVideos.size());
+            metrics.recordParse(pageType, ParseStrategy.JSON, System.nanoTime() - start);
+            commitEvent(event, pageType, ParseStrategy.JSON, jsonVideos.size());
             return jsonVideos;
         }
 
@@ -270,15 +323,18 @@ public class MissavCrawler {
             .toList());
 
         // 尝试多种选择器
+        ParseStrategy strategy = ParseStrategy.SELECTOR;
         Elements videoCards = doc.select("div.video-card, article.video, div[class*=thumbnail]");
         log.info("选择器1匹配到 {} 个元素", videoCards.size());
 
         if (videoCards.isEmpty()) {
+            strategy = ParseStrategy.DIV_GROUP;
             videoCards = doc.select("div.group");
             log.info("选择器2(div.group)匹配到 {} 个元素", videoCards.size());
         }
 
         if (videoCards.isEmpty()) {
+            strategy = ParseStrategy.ANCHOR;
             videoCards = doc.select("a[href*='/']");
             log.info("选择器3(a[href])匹配到 {} 个元素", videoCards.size());
 
@@ -318,14 +374,19 @@ public class MissavCrawler {
             }
         }
 
+        metrics.recordParse(pageType, videos.isEmpty() ? ParseStrategy.NONE : strategy, System.nanoTime() - start);
+        commitEvent(event, pageType, videos.isEmpty() ? ParseStrategy.NONE : strategy, videos.size());
         return videos;
     }
 
     /**
      * 使用 Selenium 提取客户端渲染的视频列表
      */
-    private List<Video> extractVideosWithSelenium(String url) {
+    private List<Video> extractVideosWithSelenium(String url, PageType pageType) {
         log.warn("========== 启动无头浏览器提取视频数据 ==========");
+        SeleniumSessionEvent event = new SeleniumSessionEvent();
+        event.begin();
+        boolean success = false;
         WebDriver driver = null;
         try {
             WebDriverManager.chromedriver().setup();
@@ -348,6 +409,9 @@ public class MissavCrawler {
 
             log.info("提取渲染后的 HTML");
             String renderedHtml = driver.getPageSource();
+            PageParseEvent parseEvent = new PageParseEvent();
+            parseEvent.begin();
+            long parseStart = System.nanoTime();
             Document doc = Jsoup.parse(renderedHtml);
 
             List<Video> videos = new ArrayList<>();
@@ -393,6 +457,10 @@ public class MissavCrawler {
                 }
             }
 
+            metrics.recordParse(pageType, videos.isEmpty() ? ParseStrategy.NONE : ParseStrategy.SELENIUM,
+                    System.nanoTime() - parseStart);
+            commitEvent(parseEvent, pageType, videos.isEmpty() ? ParseStrategy.NONE : ParseStrategy.SELENIUM, videos.size());
+            success = !videos.isEmpty();
             log.warn("✓ Selenium 提取完成，获得 {} 个视频", videos.size());
             return videos;
 
@@ -403,6 +471,7 @@ public class MissavCrawler {
             if (driver != null) {
                 driver.quit();
             }
+            commitEvent(event, url, pageType, success);
             log.warn("========== 无头浏览器已关闭 ==========");
         }
     }
@@ -462,6 +531,9 @@ public class MissavCrawler {
      * 解析视频详情页
      */
     private Video parseVideoDetail(String html, String detailUrl) {
+        PageParseEvent event = new PageParseEvent();
+        event.begin();
+        long parseStart = System.nanoTime();
         Document doc = Jsoup.parse(html);
         Video video = new Video();
         video.setDetailUrl(detailUrl);
@@ -551,9 +623,45 @@ public class MissavCrawler {
             video.setDuration(extractDuration(durationEl.text()));
         }
 
+        metrics.recordParse(PageType.DETAIL, ParseStrategy.DETAIL, System.nanoTime() - parseStart);
+        commitEvent(event, PageType.DETAIL, ParseStrategy.DETAIL, 1);
         return video;
     }
 
+    /**
+     * 提交 JFR 事件，未开启 JFR 录制时 shouldCommit 为 false，几乎没有开销
+     */
+    private static void commitEvent(PageFetchEvent event, String url, PageType pageType, int status, long bytes) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.pageType = pageType.tag();
+            event.status = status;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    private static void commitEvent(PageParseEvent event, PageType pageType, ParseStrategy strategy, int videos) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.pageType = pageType.tag();
+            event.strategy = strategy.tag();
+            event.videos = videos;
+            event.commit();
+        }
+    }
+
+    private static void commitEvent(SeleniumSessionEvent event, String url, PageType pageType, boolean success) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.pageType = pageType.tag();
+            event.success = success;
+            event.commit();
+        }
+    }
+
     /**
      * 按演员名爬取作品
      */
@@ -570,12 +678,12 @@ public class MissavCrawler {
                 String url = BASE_URL + "/actresses/" + encodedName + (page > 1 ? "?page=" + page : "");
                 log.info("正在抓取演员作品: {}", url);
 
-                String html = fetchHtml(url);
+                String html = fetchHtml(url, PageType.ACTRESS);
                 if (html == null) {
                     break;
                 }
 
-                List<Video> pageVideos = parseVideoList(html);
+                List<Video> pageVideos = parseVideoList(html, PageType.ACTRESS);
                 if (pageVideos.isEmpty()) {
                     break;
                 }
@@ -609,7 +717,7 @@ public class MissavCrawler {
             String url = BASE_URL + "/" + code;
             log.info("正在按番号爬取: {}", url);
 
-            String html = fetchHtml(url);
+            String html = fetchHtml(url, PageType.DETAIL);
             if (html == null) {
                 return null;
             }
@@ -641,17 +749,18 @@ public class MissavCrawler {
                 String url = BASE_URL + "/search/" + encodedKeyword + (page > 1 ? "?page=" + page : "");
                 log.info("正在搜索关键词: {}", url);
 
-                String html = fetchHtml(url);
+                String html = fetchHtml(url, PageType.SEARCH);
                 if (html == null) {
                     break;
                 }
 
-                List<Video> pageVideos = parseVideoList(html);
+                List<Video> pageVideos = parseVideoList(html, PageType.SEARCH);
 
                 // 如果第一页解析失败，尝试使用 Selenium
                 if (pageVideos.isEmpty() && page == 1) {
                     log.warn("第一页 HTML 解析失败，尝试使用 Selenium 无头浏览器");
-                    pageVideos = extractVideosWithSelenium(url);
+                    pageVideos = extractVideosWithSelenium(url, PageType.SEARCH);
+                    metrics.recordSeleniumFallback(PageType.SEARCH, !pageVideos.isEmpty());
                 }
 
                 if (pageVideos.isEmpty()) {
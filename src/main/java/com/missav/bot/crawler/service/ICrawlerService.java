@@ -23,6 +23,27 @@ public interface ICrawlerService {
      */
     List<Video> crawlAndSaveNewVideos(int pages);
 
+    /**
+     * 抓取列表页并过滤掉无效和已入库的视频（不补充详情、不入库）
+     * @param pages 页数
+     * @return 待入库的新视频
+     */
+    List<Video> crawlNewVideoCandidates(int pages);
+
+    /**
+     * 缺少演员或预览信息时抓取详情页补全，详情页请求全局限速，可多线程调用
+     * @param video 视频
+     * @return 补全后的视频（同一对象）
+     */
+    Video enrichVideo(Video video);
+
+    /**
+     * 保存新视频，已存在的跳过
+     * @param videos 待入库的视频
+     * @return 实际插入的视频
+     */
+    List<Video> saveNewVideos(List<Video> videos);
+
     /**
      * 获取未推送的视频
      * @return 未推送的视频列表
@@ -30,10 +51,11 @@ public interface ICrawlerService {
     List<Video> getUnpushedVideos();
 
     /**
-     * 标记视频为已推送
+     * 标记视频为已推送，并删除对应的新视频事件（video_outbox）
      * @param videoId 视频ID
+     * @param fencingToken 主节点任期 token，租约已被接管时不写入并抛出 IllegalStateException；null 表示不校验
      */
-    void markAsPushed(Long videoId);
+    void markAsPushed(Long videoId, Long fencingToken);
 
     /**
      * 按演员名爬取作品
@@ -1,10 +1,18 @@
 package com.missav.bot.crawler.service.impl;
 
+import com.google.common.util.concurrent.RateLimiter;
+import com.missav.bot.cluster.service.ILeaderElectionService;
+import com.missav.bot.common.jfr.DbBatchEvent;
 import com.missav.bot.crawler.CrawlResult;
+import com.missav.bot.crawler.CrawlerMetrics;
 import com.missav.bot.crawler.MissavCrawler;
 import com.missav.bot.crawler.service.ICrawlerService;
 import com.missav.bot.video.entity.Video;
 import com.missav.bot.video.mapper.VideoMapper;
+import com.missav.bot.video.mapper.VideoOutboxMapper;
+import com.missav.bot.video.service.IVideoService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,7 +27,17 @@ import java.util.List;
 public class CrawlerServiceImpl implements ICrawlerService {
 
     private final MissavCrawler crawler;
+    private final CrawlerMetrics crawlerMetrics;
+    private final ObservationRegistry observationRegistry;
     private final VideoMapper videoMapper;
+    private final VideoOutboxMapper videoOutboxMapper;
+    private final IVideoService videoService;
+    private final ILeaderElectionService leaderElectionService;
+
+    /**
+     * 详情页请求限速（两次请求间隔 200ms），流水线的多个补全线程和手动爬取共用
+     */
+    private final RateLimiter detailRateLimiter = RateLimiter.create(5.0);
 
     @Override
     @Transactional
@@ -30,6 +48,20 @@ public class CrawlerServiceImpl implements ICrawlerService {
     @Override
     @Transactional
     public List<Video> crawlAndSaveNewVideos(int pages) {
+        List<Video> newVideos = crawlNewVideoCandidates(pages);
+        if (newVideos.isEmpty()) {
+            return newVideos;
+        }
+
+        // 补充详情信息（如需要）
+        enrichDetails(newVideos);
+
+        // 批量插入
+        return saveNewVideos(newVideos);
+    }
+
+    @Override
+    public List<Video> crawlNewVideoCandidates(int pages) {
         List<Video> crawledVideos = crawler.crawlNewVideos(pages);
         List<Video> newVideos = new ArrayList<>();
         int duplicateCount = 0;
@@ -48,73 +80,102 @@ public class CrawlerServiceImpl implements ICrawlerService {
             }
         }
 
-        if (validVideos.isEmpty()) {
-            log.debug("没有有效视频需要处理");
-            log.info("本次抓取完成 - 总计: {}, 新增: 0, 重复: 0, 无效: {}",
-                crawledVideos.size(), invalidCount);
-            return newVideos;
-        }
-
-        // 批量检查重复
-        List<String> codes = validVideos.stream().map(Video::getCode).toList();
-        List<String> existingCodes = videoMapper.selectExistingCodes(codes);
-        java.util.Set<String> existingCodeSet = new java.util.HashSet<>(existingCodes);
-        duplicateCount = existingCodes.size();
-
-        // 过滤出新视频
-        for (Video video : validVideos) {
-            if (existingCodeSet.contains(video.getCode())) {
-                log.debug("视频已存在，跳过: {}", video.getCode());
-            } else {
-                newVideos.add(video);
+        if (!validVideos.isEmpty()) {
+            // 批量检查重复
+            List<String> codes = validVideos.stream().map(Video::getCode).toList();
+            List<String> existingCodes = videoMapper.selectExistingCodes(codes);
+            java.util.Set<String> existingCodeSet = new java.util.HashSet<>(existingCodes);
+            duplicateCount = existingCodes.size();
+
+            // 过滤出新视频
+            for (Video video : validVideos) {
+                if (existingCodeSet.contains(video.getCode())) {
+                    log.debug("视频已存在，跳过: {}", video.getCode());
+                } else {
+                    newVideos.add(video);
+                }
             }
         }
 
-        if (newVideos.isEmpty()) {
-            log.info("本次抓取完成 - 总计: {}, 新增: 0, 重复: {}, 无效: {}",
-                crawledVideos.size(), duplicateCount, invalidCount);
-            return newVideos;
-        }
+        log.info("列表页抓取完成 - 总计: {}, 待入库: {}, 重复: {}, 无效: {}",
+            crawledVideos.size(), newVideos.size(), duplicateCount, invalidCount);
+        crawlerMetrics.recordVideos(0, duplicateCount, invalidCount);
+        return newVideos;
+    }
 
-        // 补充详情信息（如需要）
-        for (Video video : newVideos) {
-            if (video.getDetailUrl() != null &&
-                (video.getActresses() == null || video.getPreviewUrl() == null)) {
-                try {
-                    Video detail = crawler.crawlVideoDetail(video.getDetailUrl());
-                    if (detail != null) {
-                        mergeVideoInfo(video, detail);
-                    }
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    /**
+     * 缺少演员或预览时抓取详情页补全，每个视频一个 span（crawler.enrich）
+     */
+    @Override
+    public Video enrichVideo(Video video) {
+        if (needsDetail(video)) {
+            detailRateLimiter.acquire();
+            Video detail = Observation.createNotStarted("crawler.enrich", observationRegistry)
+                    .contextualName("enrich")
+                    .highCardinalityKeyValue("video.code", video.getCode())
+                    .observe(() -> crawler.crawlVideoDetail(video.getDetailUrl()));
+            if (detail != null) {
+                mergeVideoInfo(video, detail);
             }
-            video.setPushed(false);
         }
+        video.setPushed(false);
+        return video;
+    }
 
-        // 批量插入
-        int actualInserted = 0;
-        List<Video> insertedVideos = new ArrayList<>();
+    /**
+     * 逐个补充详情
+     */
+    private void enrichDetails(List<Video> newVideos) {
         for (Video video : newVideos) {
-            try {
-                videoMapper.insert(video);
-                log.info("新视频入库: {} - {}", video.getCode(), video.getTitle());
-                insertedVideos.add(video);
-                actualInserted++;
-            } catch (org.springframework.dao.DuplicateKeyException e) {
-                log.warn("视频已存在，跳过: {}", video.getCode());
-                duplicateCount++;
-            }
+            enrichVideo(video);
         }
+    }
 
-        log.info("本次抓取完成 - 总计: {}, 新增: {}, 重复: {}, 无效: {}",
-            crawledVideos.size(), actualInserted, duplicateCount, invalidCount);
+    private boolean needsDetail(Video video) {
+        return video.getDetailUrl() != null &&
+            (video.getActresses() == null || video.getPreviewUrl() == null);
+    }
 
+    @Override
+    @Transactional
+    public List<Video> saveNewVideos(List<Video> newVideos) {
+        List<Video> insertedVideos = insertVideos(newVideos);
+        crawlerMetrics.recordVideos(insertedVideos.size(), newVideos.size() - insertedVideos.size(), 0);
         return insertedVideos;
     }
 
+    /**
+     * 逐条入库，已存在的跳过（并发抓取时可能已被其他任务插入）
+     * @return 实际插入的视频
+     */
+    private List<Video> insertVideos(List<Video> newVideos) {
+        return Observation.createNotStarted("crawler.save", observationRegistry)
+                .contextualName("save-videos")
+                .highCardinalityKeyValue("videos", String.valueOf(newVideos.size()))
+                .observe(() -> {
+                    DbBatchEvent event = new DbBatchEvent();
+                    event.begin();
+                    List<Video> insertedVideos = new ArrayList<>();
+                    for (Video video : newVideos) {
+                        try {
+                            videoService.save(video);
+                            log.info("新视频入库: {} - {}", video.getCode(), video.getTitle());
+                            insertedVideos.add(video);
+                        } catch (org.springframework.dao.DuplicateKeyException e) {
+                            log.warn("视频已存在，跳过: {}", video.getCode());
+                        }
+                    }
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.operation = "insert videos";
+                        event.rows = newVideos.size();
+                        event.affected = insertedVideos.size();
+                        event.commit();
+                    }
+                    return insertedVideos;
+                });
+    }
+
     private void mergeVideoInfo(Video target, Video source) {
         if (source.getActresses() != null && target.getActresses() == null) {
             target.setActresses(source.getActresses());
@@ -143,12 +204,12 @@ public class CrawlerServiceImpl implements ICrawlerService {
 
     @Override
     @Transactional
-    public void markAsPushed(Long videoId) {
-        Video video = videoMapper.selectById(videoId);
-        if (video != null) {
-            video.setPushed(true);
-            videoMapper.updateById(video);
+    public void markAsPushed(Long videoId, Long fencingToken) {
+        leaderElectionService.checkFencingToken(fencingToken);
+        if (videoMapper.markAsPushed(videoId) > 0) {
+            videoService.evictCache(videoId);
         }
+        videoOutboxMapper.deleteByVideoId(videoId);
     }
 
     @Override
@@ -165,9 +226,10 @@ public class CrawlerServiceImpl implements ICrawlerService {
         log.debug("开始按番号爬取: {}", code);
 
         // 先检查数据库是否已存在
-        if (videoMapper.existsByCode(code)) {
+        Video existing = videoService.getByCode(code);
+        if (existing != null) {
             log.debug("番号 {} 已存在于数据库", code);
-            return videoMapper.selectByCode(code);
+            return existing;
         }
 
         Video video = crawler.crawlByCode(code);
@@ -177,7 +239,7 @@ public class CrawlerServiceImpl implements ICrawlerService {
         }
 
         video.setPushed(false);
-        videoMapper.insert(video);
+        videoService.save(video);
         log.info("新视频入库: {} - {}", video.getCode(), video.getTitle());
 
         return video;
@@ -214,6 +276,7 @@ public class CrawlerServiceImpl implements ICrawlerService {
 
         if (validVideos.isEmpty()) {
             log.debug("没有有效视频需要处理");
+            crawlerMetrics.recordVideos(0, duplicateCount, invalidCount);
             return new CrawlResult(newVideos, crawledVideos.size(), duplicateCount, invalidCount);
         }
 
@@ -235,44 +298,21 @@ public class CrawlerServiceImpl implements ICrawlerService {
         if (newVideos.isEmpty()) {
             log.info("本次抓取完成 - 总计: {}, 新增: 0, 重复: {}, 无效: {}",
                 crawledVideos.size(), duplicateCount, invalidCount);
+            crawlerMetrics.recordVideos(0, duplicateCount, invalidCount);
             return new CrawlResult(newVideos, crawledVideos.size(), duplicateCount, invalidCount);
         }
 
         // 补充详情信息（如需要）
-        for (Video video : newVideos) {
-            if (video.getDetailUrl() != null &&
-                (video.getActresses() == null || video.getPreviewUrl() == null)) {
-                try {
-                    Video detail = crawler.crawlVideoDetail(video.getDetailUrl());
-                    if (detail != null) {
-                        mergeVideoInfo(video, detail);
-                    }
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-            video.setPushed(false);
-        }
+        enrichDetails(newVideos);
 
         // 批量插入
-        int actualInserted = 0;
-        List<Video> insertedVideos = new ArrayList<>();
-        for (Video video : newVideos) {
-            try {
-                videoMapper.insert(video);
-                log.info("新视频入库: {} - {}", video.getCode(), video.getTitle());
-                insertedVideos.add(video);
-                actualInserted++;
-            } catch (org.springframework.dao.DuplicateKeyException e) {
-                log.warn("视频已存在，跳过: {}", video.getCode());
-                duplicateCount++;
-            }
-        }
+        List<Video> insertedVideos = insertVideos(newVideos);
+        int actualInserted = insertedVideos.size();
+        duplicateCount += newVideos.size() - actualInserted;
 
         log.info("本次抓取完成 - 总计: {}, 新增: {}, 重复: {}, 无效: {}",
             crawledVideos.size(), actualInserted, duplicateCount, invalidCount);
+        crawlerMetrics.recordVideos(actualInserted, duplicateCount, invalidCount);
 
         return new CrawlResult(insertedVideos, crawledVideos.size(), duplicateCount, invalidCount);
     }
@@ -0,0 +1,85 @@
+package com.missav.bot.crawler.stub;
+
+import com.missav.bot.crawler.CrawlerMetrics;
+import com.missav.bot.crawler.MissavCrawler;
+import com.missav.bot.video.entity.Video;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 离线爬虫（仅离线/压测环境启用）
+ * 不访问网络，每次抓取生成固定数量的新视频，用于压测抓取→入库→推送链路
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "crawler.stub.enabled", havingValue = "true")
+public class StubMissavCrawler extends MissavCrawler {
+
+    private static final String[] ACTRESSES = {"三上悠亚", "河北彩花", "桥本有菜", "明日花绮罗"};
+    private static final String[] TAGS = {"中文字幕", "单体作品", "高画质", "巨乳", "剧情"};
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Value("${crawler.stub.videos-per-page:20}")
+    private int videosPerPage;
+
+    public StubMissavCrawler(CrawlerMetrics metrics, ObservationRegistry observationRegistry) {
+        super(metrics, observationRegistry);
+    }
+
+    @Override
+    public List<Video> crawlNewVideos(int pages) {
+        List<Video> videos = new ArrayList<>(pages * videosPerPage);
+        for (int i = 0; i < pages * videosPerPage; i++) {
+            videos.add(newVideo(null, null));
+        }
+        return videos;
+    }
+
+    @Override
+    public Video crawlVideoDetail(String detailUrl) {
+        return null;
+    }
+
+    @Override
+    public List<Video> crawlByActor(String actorName, Integer limit) {
+        List<Video> videos = new ArrayList<>();
+        for (int i = 0; i < (limit == null ? videosPerPage : limit); i++) {
+            videos.add(newVideo(null, actorName));
+        }
+        return videos;
+    }
+
+    @Override
+    public Video crawlByCode(String code) {
+        return newVideo(code, null);
+    }
+
+    @Override
+    public List<Video> crawlByKeyword(String keyword, Integer limit) {
+        return crawlByActor(null, limit);
+    }
+
+    private Video newVideo(String code, String actress) {
+        long n = sequence.incrementAndGet();
+        String videoCode = code != null ? code : String.format("STUB-%06d", n);
+        return Video.builder()
+                .code(videoCode)
+                .title("离线测试视频 " + videoCode)
+                .actresses(actress != null ? actress : ACTRESSES[(int) (n % ACTRESSES.length)])
+                .tags(TAGS[(int) (n % TAGS.length)] + ", " + TAGS[(int) ((n + 1) % TAGS.length)])
+                .duration(120)
+                .coverUrl("https://example.com/cover/" + videoCode + ".jpg")
+                .detailUrl("https://example.com/" + videoCode.toLowerCase())
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.missav.bot.export.controller;
+
+import com.missav.bot.export.ExportFormat;
+import com.missav.bot.export.service.IExportService;
+import com.missav.bot.push.entity.PushRecord;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * 数据导出接口
+ * 结果逐行流式写出，不在内存中缓存整张表
+ * 示例: GET /api/export/videos?format=csv&from=2024-01-01T00:00:00&pushed=true
+ */
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final IExportService exportService;
+
+    /**
+     * 导出视频
+     */
+    @GetMapping("/videos")
+    public void exportVideos(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean pushed,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        Writer writer = openWriter(response, exportFormat, "videos");
+        exportService.exportVideos(from, to, pushed, exportFormat, writer);
+    }
+
+    /**
+     * 导出推送记录
+     */
+    @GetMapping("/push-records")
+    public void exportPushRecords(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) PushRecord.PushStatus status,
+            @RequestParam(required = false) Long chatId,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        Writer writer = openWriter(response, exportFormat, "push-records");
+        exportService.exportPushRecords(from, to, status, chatId, exportFormat, writer);
+    }
+
+    private Writer openWriter(HttpServletResponse response, ExportFormat format, String name) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"" + name + "." + format.getExtension() + "\"");
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,36 @@
+package com.missav.bot.export.service;
+
+import com.missav.bot.export.ExportFormat;
+import com.missav.bot.push.entity.PushRecord;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * 数据导出服务
+ * 通过数据库游标逐行读取并直接写出，内存占用与数据量无关
+ */
+public interface IExportService {
+
+    /**
+     * 导出视频
+     * @param from 入库时间起（含），可为空
+     * @param to 入库时间止（不含），可为空
+     * @param pushed 是否已推送，可为空
+     * @return 导出行数
+     */
+    long exportVideos(LocalDateTime from, LocalDateTime to, Boolean pushed,
+                      ExportFormat format, Writer writer) throws IOException;
+
+    /**
+     * 导出推送记录
+     * @param from 推送时间起（含），可为空
+     * @param to 推送时间止（不含），可为空
+     * @param status 推送状态，可为空
+     * @param chatId 聊天ID，可为空
+     * @return 导出行数
+     */
+    long exportPushRecords(LocalDateTime from, LocalDateTime to, PushRecord.PushStatus status, Long chatId,
+                           ExportFormat format, Writer writer) throws IOException;
+}
@@ -0,0 +1,131 @@
+package com.missav.bot.export.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.missav.bot.export.ExportFormat;
+import com.missav.bot.export.service.IExportService;
+import com.missav.bot.push.entity.PushRecord;
+import com.missav.bot.push.mapper.PushRecordMapper;
+import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.mapper.VideoMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * 数据导出服务实现
+ * 游标需要在同一个数据库连接内消费完，因此导出方法都在只读事务中执行
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportServiceImpl implements IExportService {
+
+    private static final String[] VIDEO_COLUMNS = {
+        "id", "code", "title", "actresses", "tags", "duration", "release_date",
+        "cover_url", "preview_url", "detail_url", "pushed", "created_time"
+    };
+
+    private static final String[] PUSH_RECORD_COLUMNS = {
+        "id", "video_id", "chat_id", "status", "fail_reason", "pushed_at", "message_id"
+    };
+
+    /**
+     * 每写出多少行刷新一次输出流，让客户端尽早收到数据
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    private final VideoMapper videoMapper;
+    private final PushRecordMapper pushRecordMapper;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportVideos(LocalDateTime from, LocalDateTime to, Boolean pushed,
+                             ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsvRow(writer, (Object[]) VIDEO_COLUMNS);
+        }
+
+        long count = 0;
+        try (Cursor<Video> cursor = videoMapper.selectForExport(from, to, pushed)) {
+            for (Video video : cursor) {
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, video.getId(), video.getCode(), video.getTitle(), video.getActresses(),
+                        video.getTags(), video.getDuration(), video.getReleaseDate(), video.getCoverUrl(),
+                        video.getPreviewUrl(), video.getDetailUrl(), video.getPushed(), video.getCreatedTime());
+                } else {
+                    writeJsonLine(writer, video);
+                }
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("视频导出完成: {} 行, format={}", count, format);
+        return count;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportPushRecords(LocalDateTime from, LocalDateTime to, PushRecord.PushStatus status, Long chatId,
+                                  ExportFormat format, Writer writer) throws IOException {
+        if (format == ExportFormat.CSV) {
+            writeCsvRow(writer, (Object[]) PUSH_RECORD_COLUMNS);
+        }
+
+        long count = 0;
+        String statusName = status == null ? null : status.name();
+        try (Cursor<PushRecord> cursor = pushRecordMapper.selectForExport(from, to, statusName, chatId)) {
+            for (PushRecord record : cursor) {
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, record.getId(), record.getVideoId(), record.getChatId(), record.getStatus(),
+                        record.getFailReason(), record.getPushedAt(), record.getMessageId());
+                } else {
+                    writeJsonLine(writer, record);
+                }
+                if (++count % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        log.info("推送记录导出完成: {} 行, format={}", count, format);
+        return count;
+    }
+
+    private void writeJsonLine(Writer writer, Object row) throws IOException {
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    /**
+     * 按 RFC 4180 写出一行，包含逗号、引号或换行的字段用双引号包裹
+     */
+    private void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
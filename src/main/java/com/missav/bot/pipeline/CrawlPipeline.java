@@ -0,0 +1,267 @@
+package com.missav.bot.pipeline;
+
+import com.missav.bot.cluster.service.ILeaderElectionService;
+import com.missav.bot.crawler.service.ICrawlerService;
+import com.missav.bot.pipeline.dto.PipelineStageStatus;
+import com.missav.bot.push.service.IPushService;
+import com.missav.bot.stats.service.IStatsService;
+import com.missav.bot.video.entity.Video;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 抓取 → 补全详情 → 入库 → 推送 四段流水线
+ * 每段有自己的有界队列和工作线程，下游队列满时上游阻塞（背压）；
+ * 入库时同一事务写入新视频事件（video_outbox），由 VideoOutboxRelay 在提交后立即转入推送队列，
+ * 不必等本轮抓取结束，慢推送也不会挡住下一轮抓取
+ * 停机时队列中的条目直接丢弃：未入库的下轮抓取会重新发现，已入库未推送的事件仍在 video_outbox，启动后重新转发
+ * 多节点部署时每轮抓取和每批推送前核对主节点租约，失去主节点身份后的条目同样丢弃，由新主节点重新转发；
+ * 推送任务入队和标记已推送带 fencing token 写入，旧主节点在核对之后的写入不会生效
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CrawlPipeline {
+
+    /**
+     * Telegram sendMediaGroup 单次最多 10 个媒体
+     */
+    private static final int MAX_ALBUM_SIZE = 10;
+
+    private final ICrawlerService crawlerService;
+    private final IPushService pushService;
+    private final IStatsService statsService;
+    private final ILeaderElectionService leaderElectionService;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${pipeline.enrich.workers:2}")
+    private int enrichWorkers;
+
+    @Value("${pipeline.enrich.queue-capacity:50}")
+    private int enrichCapacity;
+
+    @Value("${pipeline.persist.queue-capacity:50}")
+    private int persistCapacity;
+
+    @Value("${pipeline.persist.batch-size:10}")
+    private int persistBatchSize;
+
+    @Value("${pipeline.fan-out.workers:1}")
+    private int fanOutWorkers;
+
+    @Value("${pipeline.fan-out.queue-capacity:100}")
+    private int fanOutCapacity;
+
+    /**
+     * 推送前最多等待多久凑满一个相册
+     */
+    @Value("${pipeline.fan-out.linger:2s}")
+    private Duration fanOutLinger;
+
+    @Value("${telegram.push.album-size:10}")
+    private int albumSize;
+
+    /**
+     * 停机时等待各阶段正在处理的批次完成的总时间
+     */
+    @Value("${pipeline.shutdown-timeout:10s}")
+    private Duration shutdownTimeout;
+
+    private PipelineStage<Integer> crawl;
+    private PipelineStage<Candidate> enrich;
+    private PipelineStage<Candidate> persist;
+    private PipelineStage<Video> fanOut;
+
+    /**
+     * 一轮抓取中的候选视频
+     */
+    private record Candidate(Video video, CrawlRun run) {
+    }
+
+    /**
+     * 一轮抓取的进度，本轮所有候选视频入库（或处理失败）后记录统计
+     */
+    private final class CrawlRun {
+
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicInteger remaining;
+        private final AtomicInteger inserted = new AtomicInteger();
+
+        private CrawlRun(int candidates) {
+            this.remaining = new AtomicInteger(candidates);
+        }
+
+        private void complete(boolean saved) {
+            if (saved) {
+                inserted.incrementAndGet();
+            }
+            if (remaining.decrementAndGet() == 0) {
+                long duration = System.currentTimeMillis() - startTime;
+                statsService.recordCrawl(duration, inserted.get());
+                log.info("本轮抓取入库完成，新增 {} 个视频，耗时{}ms", inserted.get(), duration);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // 最多一轮排队等待，加上正在执行的一轮
+        crawl = PipelineStage.<Integer>builder()
+                .name("crawl").capacity(1).workers(1).batchSize(1)
+                .handler(pages -> crawl(pages.get(0)))
+                .meterRegistry(meterRegistry).observationRegistry(observationRegistry)
+                .build();
+        enrich = PipelineStage.<Candidate>builder()
+                .name("enrich").capacity(enrichCapacity).workers(enrichWorkers).batchSize(1)
+                .handler(this::enrich)
+                .meterRegistry(meterRegistry).observationRegistry(observationRegistry)
+                .build();
+        persist = PipelineStage.<Candidate>builder()
+                .name("persist").capacity(persistCapacity).workers(1).batchSize(persistBatchSize)
+                .handler(this::persist)
+                .meterRegistry(meterRegistry).observationRegistry(observationRegistry)
+                .build();
+        fanOut = PipelineStage.<Video>builder()
+                .name("fan_out").capacity(fanOutCapacity).workers(fanOutWorkers)
+                .batchSize(Math.max(1, Math.min(albumSize, MAX_ALBUM_SIZE))).linger(fanOutLinger)
+                .handler(this::fanOut)
+                .meterRegistry(meterRegistry).observationRegistry(observationRegistry)
+                .build();
+
+        fanOut.start();
+        persist.start();
+        enrich.start();
+        crawl.start();
+    }
+
+    /**
+     * 停止各阶段并等待正在处理的批次结束，避免数据源关闭后仍有阶段在写库
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<PipelineStage<?>> stages = List.of(crawl, enrich, persist, fanOut);
+        stages.forEach(PipelineStage::stop);
+
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        try {
+            for (PipelineStage<?> stage : stages) {
+                if (!stage.awaitTermination(deadline)) {
+                    log.warn("流水线未能在 {} 秒内停止", shutdownTimeout.toSeconds());
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交一轮抓取，已有一轮在排队时跳过
+     * @return 是否已接受
+     */
+    public boolean submitCrawl(int pages) {
+        if (!crawl.offer(pages)) {
+            log.warn("上一次抓取任务尚未开始，跳过本次执行");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 提交已入库的视频到推送队列，队列满时阻塞
+     */
+    public void submitPush(Video video) throws InterruptedException {
+        fanOut.put(video);
+    }
+
+    /**
+     * 推送队列为空且没有正在推送的批次
+     */
+    public boolean isPushIdle() {
+        return fanOut.isIdle();
+    }
+
+    public List<PipelineStageStatus> getStatus() {
+        return List.of(crawl.getStatus(), enrich.getStatus(), persist.getStatus(), fanOut.getStatus());
+    }
+
+    /**
+     * 每轮作为一条链路（crawl.run），下游各阶段的 span 都挂在其下
+     */
+    private void crawl(int pages) throws InterruptedException {
+        Observation.createNotStarted("crawl.run", observationRegistry)
+                .contextualName("crawl-run")
+                .lowCardinalityKeyValue("pages", String.valueOf(pages))
+                .observeChecked(() -> {
+                    if (!leaderElectionService.holdsLease()) {
+                        log.warn("本节点已不是主节点，放弃本轮抓取");
+                        return;
+                    }
+                    log.info("开始定时抓取任务...");
+                    long startTime = System.currentTimeMillis();
+
+                    List<Video> newVideos = crawlerService.crawlNewVideoCandidates(pages);
+                    if (newVideos.isEmpty()) {
+                        long duration = System.currentTimeMillis() - startTime;
+                        statsService.recordCrawl(duration, 0);
+                        log.info("抓取完成，没有新视频，耗时{}ms", duration);
+                        return;
+                    }
+
+                    // 统计按实际入库数在本轮最后一个视频入库后记录
+                    CrawlRun run = new CrawlRun(newVideos.size());
+                    for (Video video : newVideos) {
+                        enrich.put(new Candidate(video, run));
+                    }
+                    log.info("抓取完成，{} 个新视频进入流水线", newVideos.size());
+                });
+    }
+
+    private void enrich(List<Candidate> candidates) throws InterruptedException {
+        for (Candidate candidate : candidates) {
+            try {
+                crawlerService.enrichVideo(candidate.video());
+            } catch (RuntimeException e) {
+                candidate.run().complete(false);
+                throw e;
+            }
+            persist.put(candidate);
+        }
+    }
+
+    private void persist(List<Candidate> candidates) {
+        List<Video> inserted = List.of();
+        try {
+            inserted = crawlerService.saveNewVideos(candidates.stream().map(Candidate::video).toList());
+        } finally {
+            for (Candidate candidate : candidates) {
+                candidate.run().complete(inserted.contains(candidate.video()));
+            }
+        }
+    }
+
+    /**
+     * 先取 fencing token 再核对租约：入队和标记已推送的事务会再用这个 token 校验，
+     * 核对之后才失去主节点身份时写入回滚，事件留给新主节点转发
+     */
+    private void fanOut(List<Video> videos) {
+        Long fencingToken = leaderElectionService.getFencingToken();
+        if (!leaderElectionService.holdsLease()) {
+            log.warn("本节点已不是主节点，放弃推送 {} 个视频", videos.size());
+            return;
+        }
+        pushService.pushVideos(videos, fencingToken);
+    }
+}
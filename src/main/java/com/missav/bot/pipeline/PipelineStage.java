@@ -0,0 +1,226 @@
+package com.missav.bot.pipeline;
+
+import com.missav.bot.pipeline.dto.PipelineStageStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流水线中的一个阶段：有界队列 + 固定数量的工作线程（虚拟线程）
+ * 队列满时 put 阻塞上游（背压），offer 直接返回 false；
+ * 工作线程每次取一批（最多 batchSize 条，首条到达后最多再等 linger），交给 handler 处理
+ */
+@Slf4j
+public class PipelineStage<T> {
+
+    private final String name;
+    private final BlockingQueue<Item<T>> queue;
+    private final int capacity;
+    private final int workers;
+    private final int batchSize;
+    private final Duration linger;
+    private final BatchHandler<T> handler;
+    private final ObservationRegistry observationRegistry;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter processed;
+    private final Counter failed;
+    private final Timer successTimer;
+    private final Timer errorTimer;
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * 处理一批条目，阻塞在下游队列上时可被中断
+     */
+    @FunctionalInterface
+    public interface BatchHandler<T> {
+        void handle(List<T> items) throws Exception;
+    }
+
+    /**
+     * 条目及其入队时所在的 Observation，处理时恢复，下游 span 仍挂在同一条链路上
+     */
+    private record Item<T>(T value, Observation parent) {
+    }
+
+    @Builder
+    private PipelineStage(String name, int capacity, int workers, int batchSize, Duration linger,
+                          BatchHandler<T> handler, MeterRegistry meterRegistry,
+                          ObservationRegistry observationRegistry) {
+        this.name = name;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.linger = linger != null ? linger : Duration.ZERO;
+        this.handler = handler;
+        this.observationRegistry = observationRegistry;
+
+        Gauge.builder("pipeline.queue.size", queue, BlockingQueue::size)
+                .description("流水线各阶段排队中的条目数")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("pipeline.queue.capacity", () -> capacity)
+                .description("流水线各阶段队列容量")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("pipeline.stage.active", active, AtomicInteger::get)
+                .description("流水线各阶段正在处理的工作线程数")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.processed = itemCounter(meterRegistry, "success");
+        this.failed = itemCounter(meterRegistry, "error");
+        this.successTimer = batchTimer(meterRegistry, "success");
+        this.errorTimer = batchTimer(meterRegistry, "error");
+    }
+
+    public void start() {
+        for (int i = 1; i <= workers; i++) {
+            threads.add(Thread.ofVirtual().name("pipeline-" + name + "-" + i).start(this::runWorker));
+        }
+    }
+
+    /**
+     * 中断工作线程，队列中未处理的条目丢弃；需要等待线程退出时再调用 awaitTermination
+     */
+    public void stop() {
+        threads.forEach(Thread::interrupt);
+        int dropped = queue.size();
+        queue.clear();
+        if (dropped > 0) {
+            log.info("流水线阶段 {} 停止，丢弃 {} 个未处理条目", name, dropped);
+        }
+    }
+
+    /**
+     * 等待工作线程退出（正在处理的批次执行完）
+     * @param deadlineNanos System.nanoTime() 截止时间
+     * @return 是否全部退出
+     */
+    public boolean awaitTermination(long deadlineNanos) throws InterruptedException {
+        for (Thread thread : threads) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0 || !thread.join(Duration.ofNanos(remaining))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 入队，队列满时阻塞等待下游消化
+     */
+    public void put(T value) throws InterruptedException {
+        queue.put(new Item<>(value, observationRegistry.getCurrentObservation()));
+    }
+
+    /**
+     * 入队，队列满时立即返回 false
+     */
+    public boolean offer(T value) {
+        return queue.offer(new Item<>(value, observationRegistry.getCurrentObservation()));
+    }
+
+    /**
+     * 队列为空且没有正在处理的条目
+     */
+    public boolean isIdle() {
+        return queue.isEmpty() && active.get() == 0;
+    }
+
+    public PipelineStageStatus getStatus() {
+        return PipelineStageStatus.builder()
+                .stage(name)
+                .queued(queue.size())
+                .capacity(capacity)
+                .active(active.get())
+                .workers(workers)
+                .processed((long) processed.count())
+                .failed((long) failed.count())
+                .build();
+    }
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Item<T>> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            process(batch);
+        }
+    }
+
+    /**
+     * 取到第一个条目即计入 active，凑批等待期间 isIdle 不会误判为空闲
+     */
+    private List<Item<T>> nextBatch() throws InterruptedException {
+        List<Item<T>> batch = new ArrayList<>(batchSize);
+        batch.add(queue.take());
+        active.incrementAndGet();
+        long deadline = System.nanoTime() + linger.toNanos();
+        try {
+            while (batch.size() < batchSize) {
+                long wait = deadline - System.nanoTime();
+                Item<T> next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        } catch (InterruptedException e) {
+            active.decrementAndGet();
+            throw e;
+        }
+        return batch;
+    }
+
+    private void process(List<Item<T>> batch) {
+        List<T> values = batch.stream().map(Item::value).toList();
+        long start = System.nanoTime();
+        try {
+            Observation.tryScopedChecked(batch.get(0).parent(), () -> handler.handle(values));
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            processed.increment(values.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            errorTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            failed.increment(values.size());
+            log.error("流水线阶段 {} 处理失败，丢弃 {} 个条目", name, values.size(), e);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private Counter itemCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("pipeline.stage.items")
+                .description("流水线各阶段处理的条目数")
+                .tag("stage", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Timer batchTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("pipeline.stage.duration")
+                .description("流水线各阶段处理一批条目的耗时")
+                .tag("stage", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,130 @@
+package com.missav.bot.pipeline;
+
+import com.missav.bot.cluster.service.ILeaderElectionService;
+import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.entity.VideoOutbox;
+import com.missav.bot.video.mapper.VideoOutboxMapper;
+import com.missav.bot.video.outbox.VideoOutboxSignal;
+import com.missav.bot.video.service.IVideoService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 新视频事件转发：把 video_outbox 中待转发的事件按 ID 顺序转入推送队列
+ * 入库事务提交后立即被唤醒，其他节点写入的事件靠轮询发现；只在主节点转发
+ * 按行上的状态而不是 ID 游标选取事件，晚提交的小 ID 事件不会被跳过，换主后也无需从头扫描
+ * 已转发的事件在推送完成（标记已推送）时删除；retry-interval 内未完成的事件在推送队列空闲时重新转发，
+ * 已成功推送的聊天会被跳过；转发 max-attempts 次仍未完成的事件被搁置，不再重试
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VideoOutboxRelay {
+
+    private final VideoOutboxMapper videoOutboxMapper;
+    private final VideoOutboxSignal videoOutboxSignal;
+    private final IVideoService videoService;
+    private final CrawlPipeline crawlPipeline;
+    private final ILeaderElectionService leaderElectionService;
+
+    @Value("${crawler.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 没有提交通知时的轮询间隔
+     */
+    @Value("${pipeline.outbox.poll-interval:1s}")
+    private Duration pollInterval;
+
+    @Value("${pipeline.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${pipeline.outbox.retry-interval:1m}")
+    private Duration retryInterval;
+
+    @Value("${pipeline.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    private Thread thread;
+
+    /**
+     * 应用就绪（Bot 已注册）后再开始转发，启动时先转发上次停机遗留的事件
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        thread = Thread.ofVirtual().name("outbox-relay").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (leaderElectionService.isLeader()) {
+                    relay();
+                }
+                videoOutboxSignal.await(pollInterval);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("转发新视频事件失败", e);
+                sleep();
+            }
+        }
+    }
+
+    /**
+     * 每个选中的事件都会被删除、搁置或推迟到重试间隔之后，循环不会重复读到同一事件
+     * 推送队列忙时只转发新事件，已转发的事件可能仍在队列中，等队列空闲再重试
+     */
+    private void relay() throws InterruptedException {
+        boolean includeRetries = crawlPipeline.isPushIdle();
+        int relayed = 0;
+        List<VideoOutbox> events;
+        do {
+            events = videoOutboxMapper.selectAvailable(includeRetries, batchSize);
+            for (VideoOutbox event : events) {
+                Video video = videoService.getById(event.getVideoId());
+                if (video == null) {
+                    // 视频已删除
+                    videoOutboxMapper.deleteById(event.getId());
+                } else if (event.getAttempts() >= maxAttempts) {
+                    videoOutboxMapper.park(event.getId());
+                    log.warn("新视频事件已转发 {} 次仍未推送完成，搁置: videoId={}", event.getAttempts(), event.getVideoId());
+                } else {
+                    videoOutboxMapper.markRelayed(event.getId(), retryInterval.toSeconds());
+                    crawlPipeline.submitPush(video);
+                    relayed++;
+                }
+            }
+        } while (events.size() == batchSize);
+
+        if (relayed > 0) {
+            log.debug("转发 {} 个新视频事件", relayed);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.missav.bot.pipeline.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * 流水线单个阶段的运行状态
+ */
+@Value
+@Builder
+public class PipelineStageStatus {
+
+    String stage;
+
+    /**
+     * 排队中的条目数
+     */
+    int queued;
+
+    int capacity;
+
+    /**
+     * 正在处理的工作线程数
+     */
+    int active;
+
+    int workers;
+
+    /**
+     * 自启动以来处理成功的条目数
+     */
+    long processed;
+
+    long failed;
+}
@@ -2,7 +2,9 @@ package com.missav.bot.push.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.missav.bot.common.CursorPage;
 import com.missav.bot.common.Result;
+import com.missav.bot.push.dto.PushRecordListItem;
 import com.missav.bot.push.entity.PushRecord;
 import com.missav.bot.push.mapper.PushRecordMapper;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +28,21 @@ public class PushRecordController {
         return Result.success(result);
     }
 
+    /**
+     * 游标分页查询推送记录列表（可按聊天过滤，精简字段），深分页与首页开销相同
+     */
+    @GetMapping("/scroll")
+    public Result<CursorPage<PushRecordListItem>> scroll(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Long chatId,
+            @RequestParam(defaultValue = "20") Integer size) {
+        if (size < 1 || size > 100) {
+            return Result.error(400, "分页参数无效");
+        }
+        List<PushRecordListItem> rows = pushRecordMapper.selectListItems(cursor, chatId, size + 1);
+        return Result.success(CursorPage.of(rows, size, PushRecordListItem::getId));
+    }
+
     @GetMapping("/{id}")
     public Result<PushRecord> getById(@PathVariable Long id) {
         PushRecord record = pushRecordMapper.selectById(id);
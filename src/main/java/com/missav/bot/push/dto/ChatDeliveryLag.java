@@ -0,0 +1,35 @@
+package com.missav.bot.push.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 单个聊天的推送送达情况（自启动以来，仅保存在内存中）
+ */
+@Value
+@Builder(toBuilder = true)
+public class ChatDeliveryLag {
+
+    Long chatId;
+    long delivered;
+    long failed;
+
+    /**
+     * 最近一次成功推送时间
+     */
+    LocalDateTime lastDeliveredAt;
+
+    /**
+     * 最近一次成功推送的视频从入库到送达的秒数
+     */
+    Long lastLagSeconds;
+
+    /**
+     * 入库到送达的最大秒数
+     */
+    Long maxLagSeconds;
+
+    LocalDateTime lastFailedAt;
+}
@@ -0,0 +1,19 @@
+package com.missav.bot.push.dto;
+
+import com.missav.bot.push.entity.PushRecord;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推送记录列表项（只包含列表展示所需字段）
+ */
+@Data
+public class PushRecordListItem {
+
+    private Long id;
+    private Long videoId;
+    private Long chatId;
+    private PushRecord.PushStatus status;
+    private LocalDateTime pushedAt;
+}
@@ -0,0 +1,52 @@
+package com.missav.bot.push.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待推送任务，每个视频和聊天一行，推送完成后删除
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("push_jobs")
+public class PushJob {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long videoId;
+    private Long chatId;
+
+    /**
+     * 按 chat_id 哈希得到的分片，同一聊天的任务总在同一分片
+     */
+    private Integer shard;
+
+    /**
+     * 已被领取的次数
+     */
+    private Integer attempts;
+
+    /**
+     * 可领取时间，领取后推迟一个可见性超时，领取者宕机时超时后可被重新领取
+     */
+    private LocalDateTime availableAt;
+
+    private String claimedBy;
+
+    /**
+     * 每次领取生成的 ID，确认和重试时据此判断任务是否仍归自己
+     */
+    private String claimId;
+
+    private LocalDateTime createdTime;
+}
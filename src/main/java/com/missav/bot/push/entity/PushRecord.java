@@ -30,6 +30,11 @@ public class PushRecord extends BaseEntity {
     private LocalDateTime pushedAt;
     private Integer messageId;
 
+    /**
+     * 推送尝试次数（同一视频和聊天只有一条记录，重试时累加）
+     */
+    private Integer attempts;
+
     public enum PushStatus {
         SUCCESS,
         FAILED
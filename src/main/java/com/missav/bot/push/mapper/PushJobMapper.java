@@ -0,0 +1,88 @@
+package com.missav.bot.push.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.missav.bot.push.entity.PushJob;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+@Mapper
+public interface PushJobMapper extends BaseMapper<PushJob> {
+
+    /**
+     * 分片归属租约的名称前缀，leader_lease.name = 前缀 + 分片
+     */
+    String SHARD_LEASE_PREFIX = "push-shard:";
+
+    /**
+     * 批量写入推送任务，同一视频和聊天已有任务时忽略（依赖 uk_video_chat）
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO push_jobs (video_id, chat_id, shard, attempts, available_at, created_time) VALUES " +
+            "<foreach collection='jobs' item='job' separator=','>" +
+            "(#{job.videoId}, #{job.chatId}, #{job.shard}, 0, NOW(), NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("jobs") List<PushJob> jobs);
+
+    /**
+     * 分片内最早可领取的任务所属的聊天（走 idx_shard_available）
+     */
+    @Select("SELECT chat_id FROM push_jobs WHERE shard = #{shard} AND available_at <= NOW() " +
+            "ORDER BY available_at, id LIMIT 1")
+    Long selectNextChatId(@Param("shard") int shard);
+
+    /**
+     * 锁定分片内同一聊天可领取的任务，已被其他事务锁定的行直接跳过
+     * owner 不再持有该分片的租约时领取不到，分片易主后旧节点不会继续领取
+     */
+    @Select("SELECT * FROM push_jobs WHERE shard = #{shard} AND chat_id = #{chatId} AND available_at <= NOW() " +
+            "AND EXISTS (SELECT 1 FROM leader_lease WHERE name = CONCAT('" + SHARD_LEASE_PREFIX + "', #{shard}) " +
+            "AND owner = #{owner} AND expires_at > NOW()) " +
+            "ORDER BY available_at, id LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<PushJob> selectClaimableForUpdate(@Param("shard") int shard, @Param("chatId") Long chatId,
+                                           @Param("owner") String owner, @Param("limit") int limit);
+
+    /**
+     * 标记为已领取，可见性超时之前其他节点不会再领取
+     */
+    @Update("<script>" +
+            "UPDATE push_jobs SET attempts = attempts + 1, claimed_by = #{claimedBy}, claim_id = #{claimId}, " +
+            "available_at = TIMESTAMPADD(SECOND, #{visibilitySeconds}, NOW()) " +
+            "WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    int markClaimed(@Param("ids") List<Long> ids, @Param("claimedBy") String claimedBy,
+                    @Param("claimId") String claimId, @Param("visibilitySeconds") long visibilitySeconds);
+
+    /**
+     * 延长一次领取的可见性超时，任务已超时被他人重新领取时不更新
+     */
+    @Update("UPDATE push_jobs SET available_at = TIMESTAMPADD(SECOND, #{visibilitySeconds}, NOW()) " +
+            "WHERE claim_id = #{claimId}")
+    int extendClaim(@Param("claimId") String claimId, @Param("visibilitySeconds") long visibilitySeconds);
+
+    /**
+     * 确认完成，任务已超时被他人重新领取时不删除
+     */
+    @Delete("DELETE FROM push_jobs WHERE id = #{id} AND claim_id = #{claimId}")
+    int deleteClaimed(@Param("id") Long id, @Param("claimId") String claimId);
+
+    /**
+     * 放回队列，延迟后可再次领取
+     */
+    @Update("UPDATE push_jobs SET claimed_by = NULL, claim_id = NULL, " +
+            "available_at = TIMESTAMPADD(SECOND, #{delaySeconds}, NOW()) " +
+            "WHERE id = #{id} AND claim_id = #{claimId}")
+    int release(@Param("id") Long id, @Param("claimId") String claimId, @Param("delaySeconds") long delaySeconds);
+
+    @Select("SELECT COUNT(*) FROM push_jobs")
+    long countAll();
+}
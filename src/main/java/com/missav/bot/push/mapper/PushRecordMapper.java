@@ -1,10 +1,17 @@
 package com.missav.bot.push.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.missav.bot.push.dto.PushRecordListItem;
 import com.missav.bot.push.entity.PushRecord;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,6 +19,44 @@ import java.util.List;
 @Mapper
 public interface PushRecordMapper extends BaseMapper<PushRecord> {
 
+    /**
+     * 幂等写入推送结果（依赖 uk_video_chat）
+     * 已成功的记录不会被后续失败覆盖，重试只累加 attempts；赋值按顺序执行，status 必须放在最后
+     */
+    @Insert("INSERT INTO push_records (video_id, chat_id, status, fail_reason, pushed_at, message_id, attempts, " +
+            "created_time, updated_time) " +
+            "VALUES (#{videoId}, #{chatId}, #{status}, #{failReason}, #{pushedAt}, #{messageId}, 1, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "attempts = attempts + 1, " +
+            "fail_reason = CASE WHEN status = 'SUCCESS' THEN fail_reason ELSE VALUES(fail_reason) END, " +
+            "pushed_at = CASE WHEN status = 'SUCCESS' THEN pushed_at ELSE VALUES(pushed_at) END, " +
+            "message_id = CASE WHEN status = 'SUCCESS' THEN message_id ELSE VALUES(message_id) END, " +
+            "updated_time = NOW(), " +
+            "status = CASE WHEN status = 'SUCCESS' THEN status ELSE VALUES(status) END")
+    int upsert(PushRecord record);
+
+    /**
+     * 更新已有推送结果（分区表没有 uk_video_chat 时代替 upsert，未命中返回 0 再调用 insertResult）
+     * 规则同 upsert：已成功的记录不被失败覆盖，status 必须放在最后
+     */
+    @Update("UPDATE push_records SET " +
+            "attempts = attempts + 1, " +
+            "fail_reason = CASE WHEN status = 'SUCCESS' THEN fail_reason ELSE #{failReason} END, " +
+            "pushed_at = CASE WHEN status = 'SUCCESS' THEN pushed_at ELSE #{pushedAt} END, " +
+            "message_id = CASE WHEN status = 'SUCCESS' THEN message_id ELSE #{messageId} END, " +
+            "updated_time = NOW(), " +
+            "status = CASE WHEN status = 'SUCCESS' THEN status ELSE #{status} END " +
+            "WHERE video_id = #{videoId} AND chat_id = #{chatId}")
+    int updateResult(PushRecord record);
+
+    /**
+     * 写入首次推送结果（配合 updateResult 使用）
+     */
+    @Insert("INSERT INTO push_records (video_id, chat_id, status, fail_reason, pushed_at, message_id, attempts, " +
+            "created_time, updated_time) " +
+            "VALUES (#{videoId}, #{chatId}, #{status}, #{failReason}, #{pushedAt}, #{messageId}, 1, NOW(), NOW())")
+    int insertResult(PushRecord record);
+
     @Select("SELECT COUNT(*) > 0 FROM push_records WHERE video_id = #{videoId} AND chat_id = #{chatId} AND status = #{status}")
     boolean existsByVideoIdAndChatIdAndStatus(@Param("videoId") Long videoId, @Param("chatId") Long chatId, @Param("status") String status);
 
@@ -27,6 +72,80 @@ public interface PushRecordMapper extends BaseMapper<PushRecord> {
     @Select("SELECT * FROM push_records WHERE status = #{status} ORDER BY pushed_at ASC")
     List<PushRecord> selectByStatusOrderByPushedAtAsc(@Param("status") String status);
 
+    /**
+     * 查询截止时间之前记录的最小 ID（走 idx_pushed_at）
+     */
+    @Select("SELECT MIN(id) FROM push_records WHERE pushed_at < #{cutoff}")
+    Long selectMinIdBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 查询截止时间之前记录的最大 ID（走 idx_pushed_at）
+     */
+    @Select("SELECT MAX(id) FROM push_records WHERE pushed_at < #{cutoff}")
+    Long selectMaxIdBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 删除 ID 区间内截止时间之前的记录（主键范围删除，每次只锁一小段）
+     */
+    @Delete("DELETE FROM push_records WHERE id >= #{fromId} AND id < #{toId} AND pushed_at < #{cutoff}")
+    int deleteByIdRangeBefore(@Param("fromId") long fromId, @Param("toId") long toId,
+                              @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 查询 push_records 的分区名（未分区时为空）
+     */
+    @Select("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'push_records' AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<String> selectPartitionNames();
+
+    /**
+     * 删除分区（分区名由程序生成，不接收外部输入）
+     */
+    @Update("ALTER TABLE push_records DROP PARTITION ${partition}")
+    void dropPartition(@Param("partition") String partition);
+
+    /**
+     * 从 pmax 中拆出新分区
+     */
+    @Update("ALTER TABLE push_records REORGANIZE PARTITION pmax INTO (" +
+            "PARTITION ${partition} VALUES LESS THAN (TO_DAYS('${lessThan}')), " +
+            "PARTITION pmax VALUES LESS THAN MAXVALUE)")
+    void addPartitionBeforeMax(@Param("partition") String partition, @Param("lessThan") String lessThan);
+
+    /**
+     * 按条件流式读取推送记录（用于导出，需在事务内消费）
+     * MySQL 使用 fetchSize = Integer.MIN_VALUE 逐行流式读取，只影响本语句；其他数据库按 fetchSize 分批读取
+     */
+    @Select("<script>" +
+            "SELECT * FROM push_records " +
+            "<where>" +
+            "<if test='from != null'>pushed_at &gt;= #{from}</if>" +
+            "<if test='to != null'>AND pushed_at &lt; #{to}</if>" +
+            "<if test='status != null'>AND status = #{status}</if>" +
+            "<if test='chatId != null'>AND chat_id = #{chatId}</if>" +
+            "</where> " +
+            "ORDER BY id" +
+            "</script>")
+    @Options(databaseId = "mysql", fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<PushRecord> selectForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                       @Param("status") String status, @Param("chatId") Long chatId);
+
+    /**
+     * 游标分页查询推送记录列表（按 ID 倒序，cursor 为空时从最新开始）
+     */
+    @Select("<script>" +
+            "SELECT id, video_id, chat_id, status, pushed_at FROM push_records " +
+            "<where>" +
+            "<if test='cursor != null'>id &lt; #{cursor}</if>" +
+            "<if test='chatId != null'>AND chat_id = #{chatId}</if>" +
+            "</where> " +
+            "ORDER BY id DESC LIMIT #{limit}" +
+            "</script>")
+    List<PushRecordListItem> selectListItems(@Param("cursor") Long cursor, @Param("chatId") Long chatId,
+                                             @Param("limit") int limit);
+
     @Select("<script>" +
             "SELECT chat_id FROM push_records WHERE video_id = #{videoId} AND status = #{status} " +
             "AND chat_id IN " +
@@ -35,4 +154,13 @@ public interface PushRecordMapper extends BaseMapper<PushRecord> {
             "</foreach>" +
             "</script>")
     List<Long> selectPushedChatIds(@Param("videoId") Long videoId, @Param("chatIds") List<Long> chatIds, @Param("status") String status);
+
+    @Select("<script>" +
+            "SELECT video_id FROM push_records WHERE chat_id = #{chatId} AND status = #{status} " +
+            "AND video_id IN " +
+            "<foreach collection='videoIds' item='videoId' open='(' separator=',' close=')'>" +
+            "#{videoId}" +
+            "</foreach>" +
+            "</script>")
+    List<Long> selectPushedVideoIds(@Param("chatId") Long chatId, @Param("videoIds") List<Long> videoIds, @Param("status") String status);
 }
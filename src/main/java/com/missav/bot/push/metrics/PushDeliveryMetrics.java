@@ -0,0 +1,93 @@
+package com.missav.bot.push.metrics;
+
+import com.missav.bot.push.dto.ChatDeliveryLag;
+import com.missav.bot.video.entity.Video;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 推送送达指标：视频入库到成功推送的耗时分布，以及各聊天的送达延迟
+ */
+@Component
+public class PushDeliveryMetrics {
+
+    private final Timer timeToDeliver;
+    private final Map<Long, ChatDeliveryLag> chats = new ConcurrentHashMap<>();
+
+    public PushDeliveryMetrics(MeterRegistry meterRegistry) {
+        this.timeToDeliver = Timer.builder("push.time.to.deliver")
+                .description("视频入库（videos.created_time）到成功推送给订阅者的耗时")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofSeconds(1))
+                .maximumExpectedValue(Duration.ofDays(1))
+                .register(meterRegistry);
+        Gauge.builder("push.chat.lag.max", chats, PushDeliveryMetrics::maxLastLag)
+                .description("各聊天最近一次送达延迟中的最大值")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次推送结果
+     */
+    public void record(Video video, Long chatId, boolean success) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!success) {
+            chats.compute(chatId, (id, lag) -> {
+                ChatDeliveryLag old = current(id, lag);
+                return old.toBuilder().failed(old.getFailed() + 1).lastFailedAt(now).build();
+            });
+            return;
+        }
+
+        Long lagSeconds = null;
+        if (video.getCreatedTime() != null) {
+            Duration lag = Duration.between(video.getCreatedTime(), now);
+            timeToDeliver.record(lag.isNegative() ? Duration.ZERO : lag);
+            lagSeconds = Math.max(0, lag.toSeconds());
+        }
+
+        Long lastLag = lagSeconds;
+        chats.compute(chatId, (id, lag) -> {
+            ChatDeliveryLag old = current(id, lag);
+            Long maxLag = lastLag == null ? old.getMaxLagSeconds()
+                    : old.getMaxLagSeconds() == null ? lastLag : Math.max(old.getMaxLagSeconds(), lastLag);
+            return old.toBuilder()
+                    .delivered(old.getDelivered() + 1)
+                    .lastDeliveredAt(now)
+                    .lastLagSeconds(lastLag != null ? lastLag : old.getLastLagSeconds())
+                    .maxLagSeconds(maxLag)
+                    .build();
+        });
+    }
+
+    public Collection<ChatDeliveryLag> getChats() {
+        return chats.values();
+    }
+
+    public ChatDeliveryLag getChat(Long chatId) {
+        return chats.get(chatId);
+    }
+
+    private static ChatDeliveryLag current(Long chatId, ChatDeliveryLag lag) {
+        return lag != null ? lag : ChatDeliveryLag.builder().chatId(chatId).build();
+    }
+
+    private static double maxLastLag(Map<Long, ChatDeliveryLag> chats) {
+        long max = 0;
+        for (ChatDeliveryLag lag : chats.values()) {
+            if (lag.getLastLagSeconds() != null) {
+                max = Math.max(max, lag.getLastLagSeconds());
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,40 @@
+package com.missav.bot.push.metrics;
+
+import com.missav.bot.push.dto.ChatDeliveryLag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 各聊天推送送达延迟
+ * GET /actuator/pushlag?limit=50 按最近一次延迟倒序；GET /actuator/pushlag/{chatId} 查看单个聊天
+ */
+@Component
+@Endpoint(id = "pushlag")
+@RequiredArgsConstructor
+public class PushLagEndpoint {
+
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final PushDeliveryMetrics pushDeliveryMetrics;
+
+    @ReadOperation
+    public List<ChatDeliveryLag> chats(@Nullable Integer limit) {
+        return pushDeliveryMetrics.getChats().stream()
+                .sorted(Comparator.comparing(ChatDeliveryLag::getLastLagSeconds,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(limit != null && limit > 0 ? limit : DEFAULT_LIMIT)
+                .toList();
+    }
+
+    @ReadOperation
+    public ChatDeliveryLag chat(@Selector Long chatId) {
+        return pushDeliveryMetrics.getChat(chatId);
+    }
+}
@@ -0,0 +1,65 @@
+package com.missav.bot.push.service;
+
+import com.missav.bot.push.entity.PushJob;
+import com.missav.bot.video.entity.Video;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 推送任务队列服务
+ * 推送任务按 chat_id 哈希分片保存在 push_jobs，每个分片同一时刻只归一个节点（leader_lease 中的分片租约），
+ * 节点的 worker 每次领取一个聊天的一小批任务，发送期间定期延长可见性超时；增加节点即可提高推送吞吐
+ */
+public interface IPushJobService {
+
+    /**
+     * 为每个聊天和视频写入推送任务（已存在的任务忽略），并在同一事务内把本轮视频标记为已推送、删除新视频事件
+     * @param videosByChat 聊天ID -> 待推送视频
+     * @param videos 本轮视频，包括没有订阅者的视频
+     * @param fencingToken 主节点任期 token，租约已被接管时不写入并抛出 IllegalStateException；null 表示不校验
+     * @return 新写入的任务数
+     */
+    int enqueue(Map<Long, List<Video>> videosByChat, List<Video> videos, Long fencingToken);
+
+    /**
+     * 领取分片内最早到期的一个聊天的任务，领取后在可见性超时内不会被其他 worker 领取
+     * @param shard 分片
+     * @param nodeId 本节点，不再持有该分片的租约时领取不到
+     * @param workerId 领取者
+     * @param limit 最多领取条数
+     */
+    List<PushJob> claim(int shard, String nodeId, String workerId, int limit);
+
+    /**
+     * 延长一次领取的可见性超时，发送期间定期调用
+     * @return 任务是否仍归这次领取
+     */
+    boolean extend(String claimId);
+
+    /**
+     * 可见性超时
+     */
+    Duration getVisibilityTimeout();
+
+    /**
+     * 确认任务完成并删除
+     */
+    void ack(PushJob job);
+
+    /**
+     * 推送失败，延迟后重新领取；超过最大尝试次数时删除（失败结果已记录在 push_records）
+     */
+    void retry(PushJob job);
+
+    /**
+     * 分片数
+     */
+    int getShardCount();
+
+    /**
+     * 待推送任务数
+     */
+    long countPending();
+}
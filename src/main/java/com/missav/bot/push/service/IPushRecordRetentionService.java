@@ -0,0 +1,13 @@
+package com.missav.bot.push.service;
+
+/**
+ * 推送记录保留策略服务
+ */
+public interface IPushRecordRetentionService {
+
+    /**
+     * 清理超过保留期限的推送记录
+     * @return 删除的记录数（分区模式下为删除的分区数）
+     */
+    long purgeExpiredRecords();
+}
@@ -2,21 +2,21 @@ package com.missav.bot.push.service;
 
 import com.missav.bot.video.entity.Video;
 
+import java.util.List;
+import java.util.Set;
+
 /**
  * 推送服务接口
  */
 public interface IPushService {
 
     /**
-     * 推送视频到所有匹配的订阅者
-     * @param video 视频
-     */
-    void pushVideoToSubscribers(Video video);
-
-    /**
-     * 推送所有未推送的视频
+     * 推送指定的一批视频（同一聊天合并为相册），推送后标记为已推送并删除新视频事件
+     * 已成功推送过的聊天会跳过，同一视频重复提交不会重复发送
+     * @param videos 已入库的视频
+     * @param fencingToken 主节点任期 token，随入队和标记已推送写入校验，null 表示不校验
      */
-    void pushUnpushedVideos();
+    void pushVideos(List<Video> videos, Long fencingToken);
 
     /**
      * 推送视频给指定用户（会记录到 push_records 表，避免重复推送）
@@ -24,4 +24,12 @@ public interface IPushService {
      * @param chatId 聊天ID
      */
     void pushVideoToChat(Video video, Long chatId);
+
+    /**
+     * 按顺序推送同一聊天的一批视频（可合并的按相册发送），已成功推送过的视频跳过
+     * @param videos 已入库的视频
+     * @param chatId 聊天ID
+     * @return 已送达的视频ID（包括此前已成功推送的）
+     */
+    Set<Long> pushVideosToChat(List<Video> videos, Long chatId);
 }
@@ -0,0 +1,137 @@
+package com.missav.bot.push.service.impl;
+
+import com.missav.bot.cluster.service.ILeaderElectionService;
+import com.missav.bot.crawler.service.ICrawlerService;
+import com.missav.bot.push.entity.PushJob;
+import com.missav.bot.push.mapper.PushJobMapper;
+import com.missav.bot.push.service.IPushJobService;
+import com.missav.bot.video.entity.Video;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 推送任务队列服务实现
+ * 领取在一个短事务内完成：锁定并标记后立即提交，发送期间不持有行锁，
+ * 领取者宕机时任务在可见性超时后重新可见；发送中的任务由 worker 定期延长可见性超时
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PushJobServiceImpl implements IPushJobService {
+
+    /**
+     * 单条 INSERT 的最大行数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    private final PushJobMapper pushJobMapper;
+    private final ILeaderElectionService leaderElectionService;
+    private final ICrawlerService crawlerService;
+
+    @Value("${push.jobs.shards:16}")
+    private int shards;
+
+    @Value("${push.jobs.visibility-timeout:5m}")
+    private Duration visibilityTimeout;
+
+    @Value("${push.jobs.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * 重试延迟，按已尝试次数线性增加
+     */
+    @Value("${push.jobs.retry-delay:30s}")
+    private Duration retryDelay;
+
+    @Override
+    @Transactional
+    public int enqueue(Map<Long, List<Video>> videosByChat, List<Video> videos, Long fencingToken) {
+        leaderElectionService.checkFencingToken(fencingToken);
+        List<PushJob> jobs = new ArrayList<>();
+        videosByChat.forEach((chatId, chatVideos) -> {
+            for (Video video : chatVideos) {
+                jobs.add(PushJob.builder().videoId(video.getId()).chatId(chatId).shard(shardOf(chatId)).build());
+            }
+        });
+
+        int inserted = 0;
+        for (int from = 0; from < jobs.size(); from += INSERT_BATCH_SIZE) {
+            inserted += pushJobMapper.insertIgnoreBatch(jobs.subList(from, Math.min(from + INSERT_BATCH_SIZE, jobs.size())));
+        }
+        // 加入本事务：任务写入失败时视频不会被标记为已推送，事件也不会被删除
+        videos.forEach(video -> crawlerService.markAsPushed(video.getId(), fencingToken));
+        return inserted;
+    }
+
+    @Override
+    @Transactional
+    public List<PushJob> claim(int shard, String nodeId, String workerId, int limit) {
+        Long chatId = pushJobMapper.selectNextChatId(shard);
+        if (chatId == null) {
+            return List.of();
+        }
+        List<PushJob> jobs = pushJobMapper.selectClaimableForUpdate(shard, chatId, nodeId, limit);
+        if (jobs.isEmpty()) {
+            return jobs;
+        }
+        String claimId = UUID.randomUUID().toString();
+        pushJobMapper.markClaimed(jobs.stream().map(PushJob::getId).toList(), workerId, claimId,
+                visibilityTimeout.toSeconds());
+        for (PushJob job : jobs) {
+            job.setAttempts(job.getAttempts() + 1);
+            job.setClaimedBy(workerId);
+            job.setClaimId(claimId);
+        }
+        return jobs;
+    }
+
+    @Override
+    public boolean extend(String claimId) {
+        return pushJobMapper.extendClaim(claimId, visibilityTimeout.toSeconds()) > 0;
+    }
+
+    @Override
+    public Duration getVisibilityTimeout() {
+        return visibilityTimeout;
+    }
+
+    @Override
+    public void ack(PushJob job) {
+        if (pushJobMapper.deleteClaimed(job.getId(), job.getClaimId()) == 0) {
+            log.warn("推送任务 {} 已超时被重新领取（可调大 push.jobs.visibility-timeout）", job.getId());
+        }
+    }
+
+    @Override
+    public void retry(PushJob job) {
+        if (job.getAttempts() >= maxAttempts) {
+            log.warn("推送任务已达最大尝试次数，放弃: videoId={}, chatId={}", job.getVideoId(), job.getChatId());
+            ack(job);
+            return;
+        }
+        pushJobMapper.release(job.getId(), job.getClaimId(), retryDelay.toSeconds() * job.getAttempts());
+    }
+
+    @Override
+    public int getShardCount() {
+        return shards;
+    }
+
+    @Override
+    public long countPending() {
+        return pushJobMapper.countAll();
+    }
+
+    private int shardOf(Long chatId) {
+        return Math.floorMod(Long.hashCode(chatId), shards);
+    }
+}
@@ -0,0 +1,127 @@
+package com.missav.bot.push.service.impl;
+
+import com.missav.bot.push.mapper.PushRecordMapper;
+import com.missav.bot.push.service.IPushRecordRetentionService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 推送记录保留策略服务实现
+ * delete 模式：按 ID 区间小批量删除，每批独立提交并暂停，避免长事务和锁表
+ * partition 模式：表按月 RANGE 分区（见 init.sql），直接删除过期分区并预建下月分区
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PushRecordRetentionServiceImpl implements IPushRecordRetentionService {
+
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final PushRecordMapper pushRecordMapper;
+
+    @Value("${push.retention.days:90}")
+    private int retentionDays;
+
+    @Value("${push.retention.mode:delete}")
+    private String mode;
+
+    @Value("${push.retention.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${push.retention.chunk-pause:200ms}")
+    private Duration chunkPause;
+
+    @PostConstruct
+    public void init() {
+        if ("partition".equalsIgnoreCase(mode)) {
+            log.warn("推送记录使用分区清理: push_records 没有 uk_video_chat 唯一键，推送结果改为先更新后插入，" +
+                    "数据库不再保证同一视频和聊天只有一条记录");
+        }
+    }
+
+    @Override
+    public long purgeExpiredRecords() {
+        if (retentionDays <= 0) {
+            log.debug("推送记录保留期限未配置，跳过清理");
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        return "partition".equalsIgnoreCase(mode) ? dropExpiredPartitions(cutoff) : deleteInChunks(cutoff);
+    }
+
+    private long deleteInChunks(LocalDateTime cutoff) {
+        Long minId = pushRecordMapper.selectMinIdBefore(cutoff);
+        if (minId == null) {
+            log.info("没有超过 {} 天的推送记录", retentionDays);
+            return 0;
+        }
+
+        // 两次查询之间记录可能已被并发清理
+        Long maxId = pushRecordMapper.selectMaxIdBefore(cutoff);
+        if (maxId == null) {
+            log.info("没有超过 {} 天的推送记录", retentionDays);
+            return 0;
+        }
+        long deleted = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            deleted += pushRecordMapper.deleteByIdRangeBefore(fromId, fromId + chunkSize, cutoff);
+            if (fromId + chunkSize <= maxId && !pause()) {
+                break;
+            }
+        }
+        log.info("推送记录清理完成: 删除 {} 条 {} 之前的记录", deleted, cutoff);
+        return deleted;
+    }
+
+    private long dropExpiredPartitions(LocalDateTime cutoff) {
+        ensureNextPartition();
+
+        // 分区 pYYYYMM 存放该月数据，整月早于截止时间才删除
+        String cutoffName = PARTITION_NAME.format(cutoff.toLocalDate());
+        long dropped = 0;
+        for (String partition : pushRecordMapper.selectPartitionNames()) {
+            if (partition.startsWith("p2") && partition.compareTo(cutoffName) < 0) {
+                pushRecordMapper.dropPartition(partition);
+                log.info("已删除推送记录分区: {}", partition);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * 从 pmax 中拆出下个月的分区，保证新数据不落入 pmax
+     */
+    private void ensureNextPartition() {
+        LocalDate nextMonth = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        String name = PARTITION_NAME.format(nextMonth);
+        List<String> partitions = pushRecordMapper.selectPartitionNames();
+        if (partitions.isEmpty()) {
+            log.warn("push_records 未分区，请按 init.sql 中的说明改为分区表或使用 delete 模式");
+            return;
+        }
+        if (!partitions.contains(name)) {
+            pushRecordMapper.addPartitionBeforeMax(name, nextMonth.plusMonths(1).toString());
+            log.info("已创建推送记录分区: {}", name);
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(chunkPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
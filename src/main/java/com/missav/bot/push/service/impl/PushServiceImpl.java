@@ -1,108 +1,197 @@
 package com.missav.bot.push.service.impl;
 
+import com.missav.bot.common.config.BotConfig;
+import com.missav.bot.common.util.LabelUtils;
 import com.missav.bot.push.entity.PushRecord;
 import com.missav.bot.push.mapper.PushRecordMapper;
+import com.missav.bot.push.metrics.PushDeliveryMetrics;
+import com.missav.bot.push.service.IPushJobService;
 import com.missav.bot.push.service.IPushService;
+import com.missav.bot.stats.service.IStatsService;
 import com.missav.bot.subscription.entity.Subscription;
 import com.missav.bot.subscription.service.ISubscriptionService;
 import com.missav.bot.telegram.TelegramMessageService;
+import com.missav.bot.telegram.TelegramMetrics;
 import com.missav.bot.video.entity.Video;
 import com.missav.bot.crawler.service.ICrawlerService;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PushServiceImpl implements IPushService {
 
+    /**
+     * Telegram sendMediaGroup 单次最多 10 个媒体
+     */
+    private static final int MAX_ALBUM_SIZE = 10;
+
     private final TelegramMessageService telegramMessageService;
     private final ISubscriptionService subscriptionService;
     private final ICrawlerService crawlerService;
     private final PushRecordMapper pushRecordMapper;
+    private final IStatsService statsService;
+    private final IPushJobService pushJobService;
+    private final PushDeliveryMetrics pushDeliveryMetrics;
+    private final TelegramMetrics telegramMetrics;
+    private final ObservationRegistry observationRegistry;
 
-    @Override
-    @Transactional
-    public void pushVideoToSubscribers(Video video) {
-        // 一次性加载所有订阅
-        List<Subscription> allSubscriptions = subscriptionService.list();
-        if (allSubscriptions.isEmpty()) {
-            crawlerService.markAsPushed(video.getId());
-            log.debug("没有任何订阅，视频 {} 已标记为已推送", video.getCode());
-            return;
-        }
+    @Value("${telegram.push.album-size:10}")
+    private int albumSize;
 
-        // 在内存中匹配订阅，收集所有需要推送的 chatId
-        Set<Long> targetChatIds = new HashSet<>();
+    /**
+     * 两次发送之间的间隔，避免触发 Telegram 限流
+     */
+    @Value("${telegram.push.interval:100ms}")
+    private Duration pushInterval;
 
-        for (Subscription sub : allSubscriptions) {
-            boolean matches = false;
+    /**
+     * 同时推送的聊天数，每个聊天各自按 pushInterval 间隔发送
+     * 所有聊天共用 Bot 的发送连接，超出连接数的线程只在发送间隔内补位
+     */
+    @Value("${telegram.push.concurrency:3}")
+    private int concurrency;
 
-            if (sub.getType() == Subscription.SubscriptionType.ALL) {
-                matches = true;
-            } else if (sub.getType() == Subscription.SubscriptionType.ACTRESS && video.getActresses() != null) {
-                String[] actresses = video.getActresses().split(",\\s*");
-                for (String actress : actresses) {
-                    if (actress.trim().equals(sub.getKeyword())) {
-                        matches = true;
-                        break;
-                    }
-                }
-            } else if (sub.getType() == Subscription.SubscriptionType.TAG && video.getTags() != null) {
-                String[] tags = video.getTags().split(",\\s*");
-                for (String tag : tags) {
-                    if (tag.trim().equals(sub.getKeyword())) {
-                        matches = true;
-                        break;
-                    }
-                }
-            }
+    /**
+     * 开启后批量推送只写入 push_jobs，由各节点的 PushJobWorker 领取发送
+     */
+    @Value("${push.jobs.enabled:false}")
+    private boolean pushJobsEnabled;
 
+    /**
+     * partition 模式下 push_records 没有 uk_video_chat，不能依赖 ON DUPLICATE KEY 幂等写入
+     */
+    @Value("${push.retention.mode:delete}")
+    private String retentionMode;
+
+    @PostConstruct
+    public void init() {
+        if (concurrency > BotConfig.TELEGRAM_CONNECTIONS) {
+            log.info("推送并发 {} 个聊天，共用 {} 个 Telegram 发送连接（命令回复优先）",
+                    concurrency, BotConfig.TELEGRAM_CONNECTIONS);
+        }
+    }
+
+    /**
+     * 在内存中匹配订阅，并排除已成功推送过的 chatId
+     */
+    private Set<Long> resolveTargetChatIds(Video video, List<Subscription> subscriptions) {
+        Set<Long> targetChatIds = new LinkedHashSet<>();
+        List<String> actresses = LabelUtils.split(video.getActresses());
+        List<String> tags = LabelUtils.split(video.getTags());
+
+        for (Subscription sub : subscriptions) {
+            if (sub.getType() == null) {
+                continue;
+            }
+            boolean matches = switch (sub.getType()) {
+                case ALL -> true;
+                case ACTRESS -> actresses.contains(sub.getKeyword());
+                case TAG -> tags.contains(sub.getKeyword());
+            };
             if (matches) {
                 targetChatIds.add(sub.getChatId());
             }
         }
 
         if (targetChatIds.isEmpty()) {
-            crawlerService.markAsPushed(video.getId());
-            log.debug("视频 {} 没有匹配的订阅者，已标记为已推送", video.getCode());
-            return;
+            return targetChatIds;
         }
 
         // 批量查询已推送的 chatId
         List<Long> pushedChatIds = pushRecordMapper.selectPushedChatIds(
             video.getId(),
-            new java.util.ArrayList<>(targetChatIds),
+            new ArrayList<>(targetChatIds),
             PushRecord.PushStatus.SUCCESS.name()
         );
-        targetChatIds.removeAll(pushedChatIds);
+        pushedChatIds.forEach(targetChatIds::remove);
+        return targetChatIds;
+    }
 
-        if (targetChatIds.isEmpty()) {
-            crawlerService.markAsPushed(video.getId());
-            log.debug("视频 {} 已推送给所有订阅者", video.getCode());
-            return;
+    private boolean pushToChatInternal(Video video, Long chatId) {
+        boolean success = observeDelivery("single", video.getCode(), chatId, () -> {
+            boolean sent = telegramMessageService.pushVideo(chatId, video);
+            savePushRecord(video, chatId, sent);
+            return sent;
+        });
+
+        if (success) {
+            log.info("推送成功: {} -> chatId={}", video.getCode(), chatId);
+        } else {
+            log.warn("推送失败: {} -> chatId={}", video.getCode(), chatId);
         }
 
-        // 推送给剩余的 chatId
-        log.debug("视频 {} 需要推送给 {} 个订阅者", video.getCode(), targetChatIds.size());
-        for (Long chatId : targetChatIds) {
-            pushToChatInternal(video, chatId);
+        throttle();
+        return success;
+    }
+
+    /**
+     * 将同一聊天的多个视频合并为相册推送，失败时逐条补发
+     */
+    private void pushAlbumToChat(List<Video> videos, Long chatId, Set<Long> delivered) {
+        String codes = videos.stream().map(Video::getCode).collect(Collectors.joining(","));
+        boolean success = observeDelivery("album", codes, chatId, () -> {
+            if (!telegramMessageService.pushAlbum(chatId, videos)) {
+                return false;
+            }
+            for (Video video : videos) {
+                savePushRecord(video, chatId, true);
+            }
+            return true;
+        });
+
+        if (!success) {
+            telegramMetrics.recordFallback("album", "single");
+            for (Video video : videos) {
+                if (pushToChatInternal(video, chatId)) {
+                    delivered.add(video.getId());
+                }
+            }
+            return;
         }
+        videos.forEach(video -> delivered.add(video.getId()));
+        log.info("相册推送成功: {} 个视频 -> chatId={}", videos.size(), chatId);
 
-        crawlerService.markAsPushed(video.getId());
-        log.info("视频 {} 推送完成，共推送给 {} 个订阅者", video.getCode(), targetChatIds.size());
+        throttle();
     }
 
-    private void pushToChatInternal(Video video, Long chatId) {
-        boolean success = telegramMessageService.pushVideo(chatId, video);
+    /**
+     * 一次送达一个 span（push.deliver），按 video.code 可以在追踪系统中找到视频从抓取到送达的各段耗时
+     */
+    private boolean observeDelivery(String kind, String videoCodes, Long chatId, Supplier<Boolean> delivery) {
+        Boolean success = Observation.createNotStarted("push.deliver", observationRegistry)
+                .contextualName("deliver-" + kind)
+                .lowCardinalityKeyValue("kind", kind)
+                .highCardinalityKeyValue("video.code", videoCodes)
+                .highCardinalityKeyValue("chat.id", String.valueOf(chatId))
+                .observe(delivery);
+        return Boolean.TRUE.equals(success);
+    }
 
+    private void savePushRecord(Video video, Long chatId, boolean success) {
         PushRecord record = PushRecord.builder()
                 .videoId(video.getId())
                 .chatId(chatId)
@@ -110,16 +199,22 @@ public class PushServiceImpl implements IPushService {
                 .failReason(success ? null : "推送失败")
                 .pushedAt(LocalDateTime.now())
                 .build();
-        pushRecordMapper.insert(record);
-
-        if (success) {
-            log.info("推送成功: {} -> chatId={}", video.getCode(), chatId);
-        } else {
-            log.warn("推送失败: {} -> chatId={}", video.getCode(), chatId);
+        if (!"partition".equalsIgnoreCase(retentionMode)) {
+            pushRecordMapper.upsert(record);
+        } else if (pushRecordMapper.updateResult(record) == 0) {
+            // 同一聊天的发送是串行的（直推按聊天分组，push_jobs 按聊天分片），先更新后插入不会并发插入重复行
+            pushRecordMapper.insertResult(record);
         }
+        statsService.recordPush(success);
+        pushDeliveryMetrics.record(video, chatId, success);
+    }
 
+    private void throttle() {
+        if (pushInterval.isZero()) {
+            return;
+        }
         try {
-            Thread.sleep(100);
+            Thread.sleep(pushInterval.toMillis());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -130,14 +225,128 @@ public class PushServiceImpl implements IPushService {
         pushToChatInternal(video, chatId);
     }
 
+    /**
+     * 不包在一个事务里：每次送达的 push_records 立即提交，中途停机后重新转发时已送达的聊天会被跳过
+     */
     @Override
-    @Transactional
-    public void pushUnpushedVideos() {
-        List<Video> unpushedVideos = crawlerService.getUnpushedVideos();
-        log.debug("待推送视频数: {}", unpushedVideos.size());
+    public void pushVideos(List<Video> videos, Long fencingToken) {
+        if (videos.isEmpty()) {
+            return;
+        }
+        Observation.createNotStarted("push.run", observationRegistry)
+                .contextualName("push-videos")
+                .highCardinalityKeyValue("videos", String.valueOf(videos.size()))
+                .observe(() -> pushToSubscribers(videos, fencingToken));
+    }
+
+    private void pushToSubscribers(List<Video> unpushedVideos, Long fencingToken) {
+        List<Subscription> allSubscriptions = subscriptionService.list();
+
+        // 按聊天归并本轮待推送的视频
+        Map<Long, List<Video>> videosByChat = new LinkedHashMap<>();
+        for (Video video : unpushedVideos) {
+            if (allSubscriptions.isEmpty()) {
+                break;
+            }
+            for (Long chatId : resolveTargetChatIds(video, allSubscriptions)) {
+                videosByChat.computeIfAbsent(chatId, k -> new ArrayList<>()).add(video);
+            }
+        }
+
+        if (pushJobsEnabled) {
+            // 写入任务与标记已推送在同一事务内，由推送 worker 领取发送
+            int queued = pushJobService.enqueue(videosByChat, unpushedVideos, fencingToken);
+            log.info("本轮推送任务已入队: {} 个视频, {} 个聊天, {} 个任务", unpushedVideos.size(), videosByChat.size(), queued);
+            return;
+        }
+
+        forEachChat(videosByChat.keySet(), chatId -> pushToChat(videosByChat.get(chatId), chatId));
 
         for (Video video : unpushedVideos) {
-            pushVideoToSubscribers(video);
+            crawlerService.markAsPushed(video.getId(), fencingToken);
+        }
+        log.info("本轮推送完成: {} 个视频, {} 个聊天", unpushedVideos.size(), videosByChat.size());
+    }
+
+    @Override
+    public Set<Long> pushVideosToChat(List<Video> videos, Long chatId) {
+        if (videos.isEmpty()) {
+            return Set.of();
+        }
+        // 分片归属和领取续期保证任务只由一个 worker 发送；确认前宕机的任务会被重新领取，发送前再核对一次 push_records
+        Set<Long> pushed = new HashSet<>(pushRecordMapper.selectPushedVideoIds(chatId,
+                videos.stream().map(Video::getId).toList(), PushRecord.PushStatus.SUCCESS.name()));
+        List<Video> pending = videos.stream().filter(video -> !pushed.contains(video.getId())).toList();
+        pushed.addAll(pushToChat(pending, chatId));
+        return pushed;
+    }
+
+    /**
+     * 按顺序推送同一聊天的视频，可合并的视频按相册发送
+     * @return 推送成功的视频ID
+     */
+    private Set<Long> pushToChat(List<Video> videos, Long chatId) {
+        Set<Long> delivered = new HashSet<>();
+        int size = Math.max(1, Math.min(albumSize, MAX_ALBUM_SIZE));
+        List<Video> album = new ArrayList<>(size);
+        for (Video video : videos) {
+            if (!telegramMessageService.isAlbumCandidate(video)) {
+                if (pushToChatInternal(video, chatId)) {
+                    delivered.add(video.getId());
+                }
+                continue;
+            }
+            album.add(video);
+            if (album.size() == size) {
+                flushAlbum(album, chatId, delivered);
+                album = new ArrayList<>(size);
+            }
+        }
+        flushAlbum(album, chatId, delivered);
+        return delivered;
+    }
+
+    /**
+     * 不同聊天在虚拟线程上并行推送，最多同时 concurrency 个，全部完成后返回
+     * 同一聊天仍在一个线程内按顺序发送；送达 span 挂在当前链路下
+     */
+    private void forEachChat(Collection<Long> chatIds, Consumer<Long> delivery) {
+        if (chatIds.size() <= 1 || concurrency <= 1) {
+            chatIds.forEach(delivery);
+            return;
+        }
+
+        Observation parent = observationRegistry.getCurrentObservation();
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("push-", 0).factory())) {
+            for (Long chatId : chatIds) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        Observation.tryScoped(parent, () -> delivery.accept(chatId));
+                    } catch (Exception e) {
+                        log.error("推送异常: chatId={}", chatId, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void flushAlbum(List<Video> album, Long chatId, Set<Long> delivered) {
+        if (album.size() == 1) {
+            if (pushToChatInternal(album.get(0), chatId)) {
+                delivered.add(album.get(0).getId());
+            }
+        } else if (album.size() > 1) {
+            pushAlbumToChat(album, chatId, delivered);
         }
     }
 }
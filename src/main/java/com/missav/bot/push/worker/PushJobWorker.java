@@ -0,0 +1,204 @@
+package com.missav.bot.push.worker;
+
+import com.missav.bot.push.entity.PushJob;
+import com.missav.bot.push.service.IPushJobService;
+import com.missav.bot.push.service.IPushService;
+import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.service.IVideoService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 推送任务 worker，每个节点都运行（不区分主备）
+ * 节点只领取自己持有的分片（见 PushShardOwnership），本节点第 i 个 worker 负责其中 shard % workers == i 的分片，
+ * 因此一个聊天同一时刻只由一个线程发送；每次领取一个聊天的一小批任务，发送期间定期延长可见性超时
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushJobWorker {
+
+    private static final Duration STOP_TIMEOUT = Duration.ofSeconds(5);
+
+    private final IPushJobService pushJobService;
+    private final IPushService pushService;
+    private final IVideoService videoService;
+    private final PushShardOwnership shardOwnership;
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${push.jobs.enabled:false}")
+    private boolean enabled;
+
+    @Value("${push.jobs.workers:2}")
+    private int workers;
+
+    /**
+     * 每次领取同一聊天的最多任务数
+     */
+    @Value("${push.jobs.batch-size:10}")
+    private int batchSize;
+
+    /**
+     * 所有分片都没有任务时的等待时间
+     */
+    @Value("${push.jobs.poll-interval:1s}")
+    private Duration pollInterval;
+
+    @Value("${cluster.node-id:}")
+    private String configuredNodeId;
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    private Counter delivered;
+    private Counter retried;
+    private Counter dropped;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        delivered = outcomeCounter("delivered");
+        retried = outcomeCounter("retried");
+        dropped = outcomeCounter("dropped");
+
+        String nodeId = configuredNodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : configuredNodeId;
+        shardOwnership.start(nodeId, pushJobService.getShardCount());
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            int index = i;
+            String workerId = nodeId + "#" + i;
+            threads.add(Thread.ofVirtual().name("push-worker-" + i).start(() -> runWorker(index, nodeId, workerId)));
+        }
+        log.info("推送任务 worker 已启动: {} 个，分片数 {}", workers, pushJobService.getShardCount());
+    }
+
+    /**
+     * 等 worker 退出后再让出分片，避免其他节点接手时本节点仍在向同一聊天发送
+     */
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        threads.forEach(Thread::interrupt);
+        try {
+            for (Thread thread : threads) {
+                thread.join(STOP_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        threads.clear();
+        shardOwnership.stop();
+    }
+
+    private void runWorker(int index, String nodeId, String workerId) {
+        while (running) {
+            boolean idle = true;
+            for (int shard : shardOwnership.getOwnedShards()) {
+                if (shard % workers != index || !shardOwnership.begin(shard)) {
+                    continue;
+                }
+                try {
+                    List<PushJob> jobs = pushJobService.claim(shard, nodeId, workerId, batchSize);
+                    if (!jobs.isEmpty()) {
+                        idle = false;
+                        deliver(jobs);
+                    }
+                } catch (Exception e) {
+                    log.error("处理推送任务失败: shard={}", shard, e);
+                } finally {
+                    shardOwnership.end(shard);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            if (idle) {
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 推送一次领取的任务（同一聊天），成功的确认，失败的放回队列
+     * 发送期间每三分之一个可见性超时延长一次，慢批次（如多次 429 退避）不会超时被重新领取
+     */
+    private void deliver(List<PushJob> jobs) {
+        Long chatId = jobs.get(0).getChatId();
+        String claimId = jobs.get(0).getClaimId();
+        Duration extendInterval = pushJobService.getVisibilityTimeout().dividedBy(3);
+        ScheduledFuture<?> keepAlive = taskScheduler.scheduleAtFixedRate(() -> {
+            if (!pushJobService.extend(claimId)) {
+                log.warn("推送任务已超时被重新领取: chatId={}", chatId);
+            }
+        }, Instant.now().plus(extendInterval), extendInterval);
+
+        try {
+            List<PushJob> sendable = new ArrayList<>();
+            List<Video> videos = new ArrayList<>();
+            for (PushJob job : jobs) {
+                Video video = videoService.getById(job.getVideoId());
+                if (video == null) {
+                    // 视频已删除
+                    pushJobService.ack(job);
+                    dropped.increment();
+                } else {
+                    sendable.add(job);
+                    videos.add(video);
+                }
+            }
+
+            Set<Long> deliveredIds;
+            try {
+                deliveredIds = pushService.pushVideosToChat(videos, chatId);
+            } catch (Exception e) {
+                log.error("推送异常: chatId={}", chatId, e);
+                deliveredIds = Set.of();
+            }
+
+            for (PushJob job : sendable) {
+                if (deliveredIds.contains(job.getVideoId())) {
+                    pushJobService.ack(job);
+                    delivered.increment();
+                } else {
+                    pushJobService.retry(job);
+                    retried.increment();
+                }
+            }
+        } finally {
+            keepAlive.cancel(false);
+        }
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("push.jobs.processed")
+                .description("推送任务处理结果")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
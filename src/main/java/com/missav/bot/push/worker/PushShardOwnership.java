@@ -0,0 +1,191 @@
+package com.missav.bot.push.worker;
+
+import com.missav.bot.cluster.mapper.LeaderLeaseMapper;
+import com.missav.bot.push.mapper.PushJobMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 推送分片归属
+ * 每个分片是 leader_lease 中的一行租约（push-shard:分片），同一时刻只归一个节点，一个聊天的任务只由一个节点领取；
+ * 各节点另有一行心跳租约（push-node:节点ID），按存活节点数平分分片：新节点加入后，其他节点在心跳时让出超出份额的空闲分片，
+ * 节点宕机后其分片在租约到期时被其他节点接管
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushShardOwnership {
+
+    private static final String NODE_LEASE_PREFIX = "push-node:";
+
+    /**
+     * 已下线节点的心跳过期多久后删除
+     */
+    private static final long STALE_NODE_SECONDS = Duration.ofDays(1).toSeconds();
+
+    private final LeaderLeaseMapper leaderLeaseMapper;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${push.jobs.shard-lease-duration:30s}")
+    private Duration leaseDuration;
+
+    private String nodeId;
+    private int shards;
+
+    /**
+     * 本节点持有的分片 -> 本地有效期（System.nanoTime），续约前开始计算，比数据库中的到期时间略早
+     */
+    private final Map<Integer, Long> owned = new ConcurrentHashMap<>();
+
+    /**
+     * 正在领取或发送的分片，心跳时不让出
+     */
+    private final Set<Integer> busy = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+
+    /**
+     * 注册本节点并开始心跳
+     */
+    void start(String nodeId, int shards) {
+        if (leaseDuration.toSeconds() < 3) {
+            throw new IllegalStateException("push.jobs.shard-lease-duration 至少为 3 秒");
+        }
+        this.nodeId = nodeId;
+        this.shards = shards;
+        leaderLeaseMapper.insertIfAbsent(nodeLeaseName());
+        for (int shard = 0; shard < shards; shard++) {
+            leaderLeaseMapper.insertIfAbsent(shardLeaseName(shard));
+        }
+        running = true;
+        heartbeat();
+    }
+
+    /**
+     * 让出所有分片并注销本节点，其他节点下次心跳即可接管
+     */
+    void stop() {
+        running = false;
+        try {
+            for (Integer shard : List.copyOf(owned.keySet())) {
+                owned.remove(shard);
+                leaderLeaseMapper.release(shardLeaseName(shard), nodeId);
+            }
+            leaderLeaseMapper.deleteById(nodeLeaseName());
+            log.info("已让出推送分片");
+        } catch (Exception e) {
+            log.warn("让出推送分片失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 开始处理分片，本节点持有该分片时返回 true，处理完后必须调用 {@link #end}
+     */
+    synchronized boolean begin(int shard) {
+        Long deadline = owned.get(shard);
+        if (deadline == null || System.nanoTime() - deadline >= 0) {
+            return false;
+        }
+        busy.add(shard);
+        return true;
+    }
+
+    void end(int shard) {
+        busy.remove(shard);
+    }
+
+    /**
+     * 本节点当前持有的分片
+     */
+    Set<Integer> getOwnedShards() {
+        return owned.keySet();
+    }
+
+    private void heartbeat() {
+        if (!running) {
+            return;
+        }
+        try {
+            rebalance();
+        } catch (Exception e) {
+            log.warn("推送分片续约失败: {}", e.getMessage());
+        } finally {
+            if (running) {
+                taskScheduler.schedule(this::heartbeat, Instant.now().plus(leaseDuration.dividedBy(3)));
+            }
+        }
+    }
+
+    /**
+     * 续约已持有的分片，让出超出份额的空闲分片，再接管无人持有的分片直到份额
+     */
+    private void rebalance() {
+        long deadline = System.nanoTime() + leaseDuration.toNanos();
+        long leaseSeconds = leaseDuration.toSeconds();
+        Set<Integer> before = Set.copyOf(owned.keySet());
+        leaderLeaseMapper.acquire(nodeLeaseName(), nodeId, leaseSeconds);
+        int nodes = Math.max(1, leaderLeaseMapper.countActive(NODE_LEASE_PREFIX));
+        int share = (shards + nodes - 1) / nodes;
+
+        for (Integer shard : List.copyOf(owned.keySet())) {
+            if (leaderLeaseMapper.acquire(shardLeaseName(shard), nodeId, leaseSeconds) > 0) {
+                owned.put(shard, deadline);
+            } else {
+                owned.remove(shard);
+                log.warn("推送分片 {} 已被其他节点接管", shard);
+            }
+        }
+
+        Integer surplus;
+        while (owned.size() > share && (surplus = removeIdleShard()) != null) {
+            leaderLeaseMapper.release(shardLeaseName(surplus), nodeId);
+            log.debug("让出推送分片 {}", surplus);
+        }
+
+        if (owned.size() < share) {
+            for (String name : leaderLeaseMapper.selectAvailableNames(PushJobMapper.SHARD_LEASE_PREFIX)) {
+                int shard = Integer.parseInt(name.substring(PushJobMapper.SHARD_LEASE_PREFIX.length()));
+                if (shard < shards && leaderLeaseMapper.acquire(name, nodeId, leaseSeconds) > 0) {
+                    owned.put(shard, deadline);
+                    log.debug("接管推送分片 {}", shard);
+                }
+                if (owned.size() >= share) {
+                    break;
+                }
+            }
+        }
+
+        if (!before.equals(owned.keySet())) {
+            log.info("本节点持有 {} 个推送分片（{} 个节点，每个节点最多 {} 个）", owned.size(), nodes, share);
+        }
+        leaderLeaseMapper.deleteStale(NODE_LEASE_PREFIX, STALE_NODE_SECONDS);
+    }
+
+    private synchronized Integer removeIdleShard() {
+        for (Integer shard : owned.keySet()) {
+            if (!busy.contains(shard)) {
+                owned.remove(shard);
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    private String nodeLeaseName() {
+        return NODE_LEASE_PREFIX + nodeId;
+    }
+
+    private static String shardLeaseName(int shard) {
+        return PushJobMapper.SHARD_LEASE_PREFIX + shard;
+    }
+}
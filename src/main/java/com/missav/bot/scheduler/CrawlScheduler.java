@@ -1,30 +1,30 @@
 package com.missav.bot.scheduler;
 
+import com.missav.bot.cluster.service.ILeaderElectionService;
+import com.missav.bot.pipeline.CrawlPipeline;
 import com.missav.bot.subscription.entity.Subscription.SubscriptionType;
-import com.missav.bot.video.entity.Video;
-import com.missav.bot.crawler.service.ICrawlerService;
-import com.missav.bot.push.service.IPushService;
+import com.missav.bot.push.service.IPushRecordRetentionService;
 import com.missav.bot.subscription.service.ISubscriptionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.time.Instant;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class CrawlScheduler {
 
-    private final ICrawlerService crawlerService;
-    private final IPushService pushService;
+    private final CrawlPipeline crawlPipeline;
+    private final TaskScheduler taskScheduler;
     private final ISubscriptionService subscriptionService;
-
-    private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final IPushRecordRetentionService pushRecordRetentionService;
+    private final ILeaderElectionService leaderElectionService;
 
     @Value("${crawler.enabled:true}")
     private boolean crawlerEnabled;
@@ -55,15 +55,8 @@ public class CrawlScheduler {
         // 执行首次抓取
         if (crawlerEnabled) {
             log.info("机器人启动，执行首次抓取...");
-            // 异步执行，避免阻塞启动
-            new Thread(() -> {
-                try {
-                    Thread.sleep(5000); // 等待5秒确保Bot完全启动
-                    executeCrawlAndPush(initialPages);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            // 等待5秒确保Bot完全启动，由调度器执行，避免阻塞启动
+            taskScheduler.schedule(() -> executeCrawlAndPush(initialPages), Instant.now().plusSeconds(5));
         }
     }
 
@@ -80,34 +73,15 @@ public class CrawlScheduler {
     }
 
     /**
-     * 执行抓取和推送
+     * 提交一轮抓取到流水线，抓取、补充详情、入库、推送由各阶段异步完成
+     * 多节点部署时只有主节点执行
      */
     private void executeCrawlAndPush(int pages) {
-        // 防止并发执行
-        if (!isRunning.compareAndSet(false, true)) {
-            log.warn("上一次抓取任务尚未完成，跳过本次执行");
+        if (!leaderElectionService.isLeader()) {
+            log.debug("本节点不是主节点，跳过定时抓取");
             return;
         }
-
-        try {
-            log.info("开始定时抓取任务...");
-            long startTime = System.currentTimeMillis();
-
-            // 1. 抓取新视频
-            List<Video> newVideos = crawlerService.crawlAndSaveNewVideos(pages);
-            log.info("抓取完成，发现{}个新视频", newVideos.size());
-
-            // 2. 推送未推送的视频
-            pushService.pushUnpushedVideos();
-
-            long duration = System.currentTimeMillis() - startTime;
-            log.info("定时任务完成，耗时{}ms", duration);
-
-        } catch (Exception e) {
-            log.error("定时抓取任务执行失败", e);
-        } finally {
-            isRunning.set(false);
-        }
+        crawlPipeline.submitCrawl(pages);
     }
 
     /**
@@ -115,7 +89,14 @@ public class CrawlScheduler {
      */
     @Scheduled(cron = "${crawler.cleanup-cron:0 0 3 * * ?}")
     public void cleanupOldRecords() {
+        if (!leaderElectionService.isLeader()) {
+            return;
+        }
         log.info("执行清理任务...");
-        // 可以在这里添加清理逻辑
+        try {
+            pushRecordRetentionService.purgeExpiredRecords();
+        } catch (Exception e) {
+            log.error("清理推送记录失败", e);
+        }
     }
 }
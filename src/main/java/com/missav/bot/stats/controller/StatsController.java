@@ -0,0 +1,25 @@
+package com.missav.bot.stats.controller;
+
+import com.missav.bot.common.Result;
+import com.missav.bot.stats.dto.StatsSnapshot;
+import com.missav.bot.stats.service.IStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 运行统计接口
+ */
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final IStatsService statsService;
+
+    @GetMapping
+    public Result<StatsSnapshot> get() {
+        return Result.success(statsService.snapshot());
+    }
+}
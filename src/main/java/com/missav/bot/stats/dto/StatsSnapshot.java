@@ -0,0 +1,29 @@
+package com.missav.bot.stats.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 运行统计快照
+ */
+@Value
+@Builder
+public class StatsSnapshot {
+
+    long totalVideos;
+    long newVideosToday;
+    long pushSuccessToday;
+    long pushFailedToday;
+
+    /**
+     * 今日推送成功率（0~1），今日无推送时为 null
+     */
+    Double pushSuccessRate;
+
+    long crawlRunsToday;
+    Long lastCrawlDurationMs;
+    Integer lastCrawlNewCount;
+    LocalDateTime lastCrawlAt;
+}
@@ -0,0 +1,35 @@
+package com.missav.bot.stats.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按小时汇总的运行统计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("stats_hourly")
+public class StatsHourly {
+
+    /**
+     * 小时起始时间（整点）
+     */
+    @TableId(type = IdType.INPUT)
+    private LocalDateTime hourStart;
+
+    private Long newVideos;
+    private Long pushSuccess;
+    private Long pushFailed;
+    private Long crawlRuns;
+    private Long crawlDurationMs;
+    private LocalDateTime updatedTime;
+}
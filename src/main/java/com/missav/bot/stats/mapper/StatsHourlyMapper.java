@@ -0,0 +1,38 @@
+package com.missav.bot.stats.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.missav.bot.stats.entity.StatsHourly;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+@Mapper
+public interface StatsHourlyMapper extends BaseMapper<StatsHourly> {
+
+    /**
+     * 将增量累加到对应小时的汇总行
+     */
+    @Insert("INSERT INTO stats_hourly (hour_start, new_videos, push_success, push_failed, crawl_runs, " +
+            "crawl_duration_ms, updated_time) " +
+            "VALUES (#{hourStart}, #{newVideos}, #{pushSuccess}, #{pushFailed}, #{crawlRuns}, #{crawlDurationMs}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "new_videos = new_videos + VALUES(new_videos), " +
+            "push_success = push_success + VALUES(push_success), " +
+            "push_failed = push_failed + VALUES(push_failed), " +
+            "crawl_runs = crawl_runs + VALUES(crawl_runs), " +
+            "crawl_duration_ms = crawl_duration_ms + VALUES(crawl_duration_ms), " +
+            "updated_time = NOW()")
+    int addDelta(StatsHourly delta);
+
+    /**
+     * 汇总指定时间之后的统计（用于启动时恢复当日计数）
+     */
+    @Select("SELECT MIN(hour_start) AS hour_start, COALESCE(SUM(new_videos), 0) AS new_videos, " +
+            "COALESCE(SUM(push_success), 0) AS push_success, COALESCE(SUM(push_failed), 0) AS push_failed, " +
+            "COALESCE(SUM(crawl_runs), 0) AS crawl_runs, COALESCE(SUM(crawl_duration_ms), 0) AS crawl_duration_ms " +
+            "FROM stats_hourly WHERE hour_start >= #{since}")
+    StatsHourly sumSince(@Param("since") LocalDateTime since);
+}
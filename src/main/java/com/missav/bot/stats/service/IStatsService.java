@@ -0,0 +1,42 @@
+package com.missav.bot.stats.service;
+
+import com.missav.bot.stats.dto.StatsSnapshot;
+
+/**
+ * 运行统计服务
+ * 计数在内存中增量维护，定期按小时汇总写入 stats_hourly
+ */
+public interface IStatsService {
+
+    /**
+     * 记录新入库的视频
+     */
+    void recordVideosSaved(int count);
+
+    /**
+     * 记录被删除的视频
+     */
+    void recordVideosRemoved(int count);
+
+    /**
+     * 记录一次推送结果
+     */
+    void recordPush(boolean success);
+
+    /**
+     * 记录一次定时抓取
+     * @param durationMs 耗时（毫秒）
+     * @param newCount 新增视频数
+     */
+    void recordCrawl(long durationMs, int newCount);
+
+    /**
+     * 获取当前统计快照（不访问数据库）
+     */
+    StatsSnapshot snapshot();
+
+    /**
+     * 从数据库重新加载视频总数和今日累计（多节点时汇总其他节点的计数），最近一轮抓取只在执行抓取的节点上有
+     */
+    void refresh();
+}
@@ -0,0 +1,242 @@
+package com.missav.bot.stats.service.impl;
+
+import com.missav.bot.stats.dto.StatsSnapshot;
+import com.missav.bot.stats.entity.StatsHourly;
+import com.missav.bot.stats.mapper.StatsHourlyMapper;
+import com.missav.bot.stats.service.IStatsService;
+import com.missav.bot.video.mapper.VideoMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 运行统计服务实现
+ * 视频总数只在启动时 COUNT 一次，之后随入库/删除增量维护
+ * 多节点时由 VideoViewSync 定期调用 {@link #refresh()}，以数据库为准汇总所有节点的计数
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatsServiceImpl implements IStatsService {
+
+    private final VideoMapper videoMapper;
+    private final StatsHourlyMapper statsHourlyMapper;
+
+    private final AtomicLong totalVideos = new AtomicLong();
+
+    // 今日累计
+    private final AtomicLong newVideosToday = new AtomicLong();
+    private final AtomicLong pushSuccessToday = new AtomicLong();
+    private final AtomicLong pushFailedToday = new AtomicLong();
+    private final AtomicLong crawlRunsToday = new AtomicLong();
+    private volatile LocalDate today = LocalDate.now();
+
+    // 当前小时尚未写入 stats_hourly 的增量
+    private volatile LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+    private final AtomicLong pendingNewVideos = new AtomicLong();
+    private final AtomicLong pendingPushSuccess = new AtomicLong();
+    private final AtomicLong pendingPushFailed = new AtomicLong();
+    private final AtomicLong pendingCrawlRuns = new AtomicLong();
+    private final AtomicLong pendingCrawlDurationMs = new AtomicLong();
+
+    /**
+     * 已结束的小时（及写入失败）尚未写入的增量
+     */
+    private final Queue<StatsHourly> unflushed = new ConcurrentLinkedQueue<>();
+
+    private volatile Long lastCrawlDurationMs;
+    private volatile Integer lastCrawlNewCount;
+    private volatile LocalDateTime lastCrawlAt;
+
+    @PostConstruct
+    public void init() {
+        try {
+            totalVideos.set(videoMapper.selectCount(null));
+            StatsHourly sum = statsHourlyMapper.sumSince(today.atStartOfDay());
+            if (sum != null) {
+                newVideosToday.set(sum.getNewVideos());
+                pushSuccessToday.set(sum.getPushSuccess());
+                pushFailedToday.set(sum.getPushFailed());
+                crawlRunsToday.set(sum.getCrawlRuns());
+            }
+        } catch (Exception e) {
+            log.error("加载统计数据失败（请确认已执行 docs/sql/upgrade.sql）", e);
+        }
+    }
+
+    @Override
+    public void recordVideosSaved(int count) {
+        rollOverIfNeeded();
+        totalVideos.addAndGet(count);
+        newVideosToday.addAndGet(count);
+        pendingNewVideos.addAndGet(count);
+    }
+
+    @Override
+    public void recordVideosRemoved(int count) {
+        totalVideos.addAndGet(-count);
+    }
+
+    @Override
+    public void recordPush(boolean success) {
+        rollOverIfNeeded();
+        if (success) {
+            pushSuccessToday.incrementAndGet();
+            pendingPushSuccess.incrementAndGet();
+        } else {
+            pushFailedToday.incrementAndGet();
+            pendingPushFailed.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void recordCrawl(long durationMs, int newCount) {
+        rollOverIfNeeded();
+        crawlRunsToday.incrementAndGet();
+        pendingCrawlRuns.incrementAndGet();
+        pendingCrawlDurationMs.addAndGet(durationMs);
+        lastCrawlDurationMs = durationMs;
+        lastCrawlNewCount = newCount;
+        lastCrawlAt = LocalDateTime.now();
+    }
+
+    @Override
+    public StatsSnapshot snapshot() {
+        rollOverIfNeeded();
+        long success = pushSuccessToday.get();
+        long failed = pushFailedToday.get();
+        return StatsSnapshot.builder()
+                .totalVideos(totalVideos.get())
+                .newVideosToday(newVideosToday.get())
+                .pushSuccessToday(success)
+                .pushFailedToday(failed)
+                .pushSuccessRate(success + failed == 0 ? null : (double) success / (success + failed))
+                .crawlRunsToday(crawlRunsToday.get())
+                .lastCrawlDurationMs(lastCrawlDurationMs)
+                .lastCrawlNewCount(lastCrawlNewCount)
+                .lastCrawlAt(lastCrawlAt)
+                .build();
+    }
+
+    /**
+     * 今日累计 = stats_hourly 中已写入的（所有节点）+ 本节点尚未写入的增量
+     */
+    @Override
+    public synchronized void refresh() {
+        rollOverIfNeeded();
+        LocalDateTime startOfDay = today.atStartOfDay();
+        long total = videoMapper.selectCount(null);
+        StatsHourly sum = statsHourlyMapper.sumSince(startOfDay);
+
+        long newVideos = pendingNewVideos.get();
+        long pushSuccess = pendingPushSuccess.get();
+        long pushFailed = pendingPushFailed.get();
+        long crawlRuns = pendingCrawlRuns.get();
+        for (StatsHourly delta : unflushed) {
+            if (!delta.getHourStart().isBefore(startOfDay)) {
+                newVideos += delta.getNewVideos();
+                pushSuccess += delta.getPushSuccess();
+                pushFailed += delta.getPushFailed();
+                crawlRuns += delta.getCrawlRuns();
+            }
+        }
+        if (sum != null) {
+            newVideos += sum.getNewVideos();
+            pushSuccess += sum.getPushSuccess();
+            pushFailed += sum.getPushFailed();
+            crawlRuns += sum.getCrawlRuns();
+        }
+
+        totalVideos.set(total);
+        newVideosToday.set(newVideos);
+        pushSuccessToday.set(pushSuccess);
+        pushFailedToday.set(pushFailed);
+        crawlRunsToday.set(crawlRuns);
+    }
+
+    /**
+     * 将增量写入所属小时的汇总行
+     * 与 refresh 互斥：增量从队列取出到写入之间既不在内存也不在数据库中
+     */
+    @Scheduled(fixedDelayString = "${stats.flush-interval:60000}")
+    @PreDestroy
+    public synchronized void flush() {
+        // 先把跨过整点前的增量归入上一小时
+        rollOverIfNeeded();
+        StatsHourly current = drainPending(currentHour);
+        if (current != null) {
+            unflushed.add(current);
+        }
+
+        List<StatsHourly> failed = new ArrayList<>();
+        StatsHourly delta;
+        while ((delta = unflushed.poll()) != null) {
+            try {
+                statsHourlyMapper.addDelta(delta);
+            } catch (Exception e) {
+                failed.add(delta);
+                log.warn("写入小时统计失败: {}", e.getMessage());
+            }
+        }
+        // 写入失败的增量保留所属小时，下次再试
+        unflushed.addAll(failed);
+    }
+
+    /**
+     * 取出尚未写入的增量
+     * @return 没有增量时返回 null
+     */
+    private StatsHourly drainPending(LocalDateTime hourStart) {
+        StatsHourly delta = StatsHourly.builder()
+                .hourStart(hourStart)
+                .newVideos(pendingNewVideos.getAndSet(0))
+                .pushSuccess(pendingPushSuccess.getAndSet(0))
+                .pushFailed(pendingPushFailed.getAndSet(0))
+                .crawlRuns(pendingCrawlRuns.getAndSet(0))
+                .crawlDurationMs(pendingCrawlDurationMs.getAndSet(0))
+                .build();
+        if (delta.getNewVideos() + delta.getPushSuccess() + delta.getPushFailed() + delta.getCrawlRuns() == 0) {
+            return null;
+        }
+        return delta;
+    }
+
+    /**
+     * 跨小时时把增量归入上一小时（下次 flush 时写入），跨天时清零今日计数
+     */
+    private void rollOverIfNeeded() {
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        if (!hour.equals(currentHour)) {
+            synchronized (this) {
+                if (!hour.equals(currentHour)) {
+                    StatsHourly closed = drainPending(currentHour);
+                    if (closed != null) {
+                        unflushed.add(closed);
+                    }
+                    currentHour = hour;
+
+                    LocalDate now = hour.toLocalDate();
+                    if (!now.equals(today)) {
+                        newVideosToday.set(0);
+                        pushSuccessToday.set(0);
+                        pushFailedToday.set(0);
+                        crawlRunsToday.set(0);
+                        today = now;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.missav.bot.subscription.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.missav.bot.common.CursorPage;
 import com.missav.bot.common.Result;
+import com.missav.bot.subscription.dto.SubscriptionListItem;
 import com.missav.bot.subscription.entity.Subscription;
 import com.missav.bot.subscription.mapper.SubscriptionMapper;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +34,20 @@ public class SubscriptionController {
         return Result.success(result);
     }
 
+    /**
+     * 游标分页查询订阅列表（精简字段），深分页与首页开销相同
+     */
+    @GetMapping("/scroll")
+    public Result<CursorPage<SubscriptionListItem>> scroll(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") Integer size) {
+        if (size < 1 || size > 100) {
+            return Result.error(400, "分页参数无效");
+        }
+        List<SubscriptionListItem> rows = subscriptionMapper.selectListItems(cursor, size + 1);
+        return Result.success(CursorPage.of(rows, size, SubscriptionListItem::getId));
+    }
+
     /**
      * 根据ID查询订阅
      */
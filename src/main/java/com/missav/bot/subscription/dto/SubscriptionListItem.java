@@ -0,0 +1,18 @@
+package com.missav.bot.subscription.dto;
+
+import com.missav.bot.subscription.entity.Subscription;
+import lombok.Data;
+
+/**
+ * 订阅列表项（只包含列表展示所需字段）
+ */
+@Data
+public class SubscriptionListItem {
+
+    private Long id;
+    private Long chatId;
+    private String chatType;
+    private Subscription.SubscriptionType type;
+    private String keyword;
+    private Boolean enabled;
+}
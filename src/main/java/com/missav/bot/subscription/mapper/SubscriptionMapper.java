@@ -1,6 +1,7 @@
 package com.missav.bot.subscription.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.missav.bot.subscription.dto.SubscriptionListItem;
 import com.missav.bot.subscription.entity.Subscription;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
@@ -12,6 +13,16 @@ import java.util.List;
 @Mapper
 public interface SubscriptionMapper extends BaseMapper<Subscription> {
 
+    /**
+     * 游标分页查询订阅列表（按 ID 倒序，cursor 为空时从最新开始）
+     */
+    @Select("<script>" +
+            "SELECT id, chat_id, chat_type, type, keyword, enabled FROM subscriptions " +
+            "<where><if test='cursor != null'>id &lt; #{cursor}</if></where> " +
+            "ORDER BY id DESC LIMIT #{limit}" +
+            "</script>")
+    List<SubscriptionListItem> selectListItems(@Param("cursor") Long cursor, @Param("limit") int limit);
+
     /**
      * 查找聊天的所有启用订阅
      */
@@ -0,0 +1,62 @@
+package com.missav.bot.telegram;
+
+/**
+ * Markdown 特殊字符转义
+ * 单次遍历完成转义，输入中没有特殊字符时直接返回原字符串，不产生新对象
+ */
+public final class MarkdownEscaper {
+
+    /**
+     * 需要转义的字符表（ASCII 范围内按下标查表）
+     */
+    private static final boolean[] SPECIAL = new boolean[128];
+
+    static {
+        for (char c : "_*[]()~`>#+-=|{}.!".toCharArray()) {
+            SPECIAL[c] = true;
+        }
+    }
+
+    private MarkdownEscaper() {
+    }
+
+    public static String escape(String text) {
+        if (text == null) return "";
+
+        int length = text.length();
+        int first = 0;
+        while (first < length && !isSpecial(text.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return text;
+        }
+
+        StringBuilder sb = new StringBuilder(length + 16);
+        sb.append(text, 0, first);
+        appendEscaped(sb, text, first, length);
+        return sb.toString();
+    }
+
+    /**
+     * 将转义后的文本直接追加到 StringBuilder，避免中间字符串
+     */
+    public static void appendEscaped(StringBuilder sb, String text) {
+        if (text == null) return;
+        appendEscaped(sb, text, 0, text.length());
+    }
+
+    private static void appendEscaped(StringBuilder sb, CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isSpecial(c)) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+
+    private static boolean isSpecial(char c) {
+        return c < 128 && SPECIAL[c];
+    }
+}
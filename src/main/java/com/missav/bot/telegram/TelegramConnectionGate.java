@@ -0,0 +1,67 @@
+package com.missav.bot.telegram;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Telegram 连接许可
+ * 许可数与 Bot 发送连接池的连接数相同，请求先在这里排队，不会阻塞在连接池里钉住虚拟线程的载体线程；
+ * 命令回复优先于推送：有回复在等待时，释放的连接先给回复，推送高峰时回复最多等待一个进行中的请求
+ */
+final class TelegramConnectionGate {
+
+    /**
+     * 请求类型
+     */
+    enum Priority {
+        REPLY,  // 命令回复、按钮回调
+        PUSH    // 推送
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private int available;
+    private int waitingReplies;
+
+    TelegramConnectionGate(int connections) {
+        this.available = connections;
+    }
+
+    void acquire(Priority priority) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (priority == Priority.REPLY) {
+                waitingReplies++;
+                try {
+                    while (available == 0) {
+                        released.await();
+                    }
+                } finally {
+                    waitingReplies--;
+                }
+            } else {
+                while (available == 0 || waitingReplies > 0) {
+                    released.await();
+                }
+            }
+            available--;
+        } finally {
+            if (priority == Priority.REPLY) {
+                // 回复取走许可（或放弃等待）后，被它挡住的推送需要重新检查
+                released.signalAll();
+            }
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            available++;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -1,15 +1,37 @@
 package com.missav.bot.telegram;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.missav.bot.common.config.BotConfig;
+import com.missav.bot.common.jfr.TelegramSendEvent;
+import com.missav.bot.common.util.LabelUtils;
+import com.missav.bot.telegram.TelegramConnectionGate.Priority;
 import com.missav.bot.video.entity.Video;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.AnswerCallbackQuery;
+import org.telegram.telegrambots.meta.api.methods.send.SendMediaGroup;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
 import org.telegram.telegrambots.meta.api.methods.send.SendVideo;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageCaption;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageMedia;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.media.InputMedia;
+import org.telegram.telegrambots.meta.api.objects.media.InputMediaPhoto;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.bots.AbsSender;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Telegram 消息发送服务
@@ -17,13 +39,42 @@ import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class TelegramMessageService {
 
+    private final TelegramMetrics telegramMetrics;
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * 所有请求先按 Bot 发送连接池的连接数排队，命令回复优先
+     */
+    private final TelegramConnectionGate connectionGate = new TelegramConnectionGate(BotConfig.TELEGRAM_CONNECTIONS);
+
+    /**
+     * 推送文案缓存
+     */
+    private final Cache<CaptionKey, String> captionCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
     private AbsSender bot;
 
     @Value("${telegram.bot.username:MissavBot}")
     private String botUsername;
 
+    /**
+     * 被限流（429）时按 retry_after 等待后重试的次数
+     */
+    @Value("${telegram.push.max-retries:3}")
+    private int maxRetries;
+
+    /**
+     * retry_after 超过该值时不再等待，直接按失败处理
+     */
+    @Value("${telegram.push.max-retry-after:60s}")
+    private Duration maxRetryAfter;
+
     /**
      * 设置 Bot 实例（由 MissavBot 启动时调用）
      */
@@ -41,16 +92,16 @@ public class TelegramMessageService {
 
             // 优先发送预览视频
             if (video.getPreviewUrl() != null && !video.getPreviewUrl().isEmpty()) {
-                return sendVideoWithCaption(chatId, video.getPreviewUrl(), video.getCoverUrl(), caption);
+                return sendVideoWithCaption(chatId, video.getPreviewUrl(), video.getCoverUrl(), caption, Priority.PUSH);
             }
 
             // 其次发送封面图
             if (video.getCoverUrl() != null && !video.getCoverUrl().isEmpty()) {
-                return sendPhotoWithCaption(chatId, video.getCoverUrl(), caption);
+                return sendPhotoWithCaption(chatId, video.getCoverUrl(), caption, Priority.PUSH);
             }
 
             // 最后发送纯文本
-            sendMarkdown(chatId, caption);
+            sendMarkdown(chatId, caption, Priority.PUSH);
             return true;
         } catch (Exception e) {
             log.error("推送视频失败: chatId={}, code={}", chatId, video.getCode(), e);
@@ -58,20 +109,73 @@ public class TelegramMessageService {
         }
     }
 
+    /**
+     * 以相册形式推送多个视频（sendMediaGroup，2~10 个，均需有效封面）
+     * 每张图片使用与单条推送相同的文案
+     * @return 是否推送成功，失败时由调用方逐条补发
+     */
+    public boolean pushAlbum(Long chatId, List<Video> videos) {
+        List<InputMedia> medias = new ArrayList<>(videos.size());
+        for (Video video : videos) {
+            InputMediaPhoto media = new InputMediaPhoto(video.getCoverUrl().trim());
+            media.setCaption(formatVideoMessage(video));
+            media.setParseMode("Markdown");
+            medias.add(media);
+        }
+
+        try {
+            SendMediaGroup sendMediaGroup = new SendMediaGroup();
+            sendMediaGroup.setChatId(chatId.toString());
+            sendMediaGroup.setMedias(medias);
+            execute("sendMediaGroup", Priority.PUSH, () -> bot.execute(sendMediaGroup));
+            return true;
+        } catch (TelegramApiException e) {
+            log.warn("发送相册失败: chatId={}, size={}, error={}", chatId, videos.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 视频能否放入相册（相册只发送封面图）
+     */
+    public boolean isAlbumCandidate(Video video) {
+        return isValidUrl(video.getCoverUrl());
+    }
+
     /**
      * 格式化视频消息
+     * 渲染结果按文案用到的字段缓存，推送给多个聊天时只渲染一次，视频被修改后自然失效
      */
     public String formatVideoMessage(Video video) {
-        StringBuilder sb = new StringBuilder();
+        CaptionKey key = CaptionKey.of(video);
+        String caption = captionCache.getIfPresent(key);
+        if (caption == null) {
+            caption = renderVideoMessage(video);
+            captionCache.put(key, caption);
+        }
+        return caption;
+    }
+
+    /**
+     * 渲染视频消息文案
+     */
+    static String renderVideoMessage(Video video) {
+        StringBuilder sb = new StringBuilder(256);
         sb.append("🎬 *新片上架*\n\n");
-        sb.append("📌 番号: `").append(escapeMarkdown(video.getCode())).append("`\n");
+        sb.append("📌 番号: `");
+        MarkdownEscaper.appendEscaped(sb, video.getCode());
+        sb.append("`\n");
 
         if (video.getActresses() != null && !video.getActresses().isEmpty()) {
-            sb.append("👩 演员: ").append(escapeMarkdown(video.getActresses())).append("\n");
+            sb.append("👩 演员: ");
+            MarkdownEscaper.appendEscaped(sb, video.getActresses());
+            sb.append("\n");
         }
 
         if (video.getTags() != null && !video.getTags().isEmpty()) {
-            sb.append("🏷️ 标签: ").append(formatTags(video.getTags())).append("\n");
+            sb.append("🏷️ 标签: ");
+            appendTags(sb, video.getTags());
+            sb.append("\n");
         }
 
         if (video.getDuration() != null) {
@@ -84,41 +188,34 @@ public class TelegramMessageService {
     }
 
     /**
-     * 转义 Markdown 特殊字符
+     * 文案用到的全部字段
      */
-    private String escapeMarkdown(String text) {
-        if (text == null) return "";
-        return text.replace("_", "\\_")
-                   .replace("*", "\\*")
-                   .replace("[", "\\[")
-                   .replace("]", "\\]")
-                   .replace("(", "\\(")
-                   .replace(")", "\\)")
-                   .replace("~", "\\~")
-                   .replace("`", "\\`")
-                   .replace(">", "\\>")
-                   .replace("#", "\\#")
-                   .replace("+", "\\+")
-                   .replace("-", "\\-")
-                   .replace("=", "\\=")
-                   .replace("|", "\\|")
-                   .replace("{", "\\{")
-                   .replace("}", "\\}")
-                   .replace(".", "\\.")
-                   .replace("!", "\\!");
+    private record CaptionKey(String code, String actresses, String tags, Integer duration, String detailUrl) {
+
+        static CaptionKey of(Video video) {
+            return new CaptionKey(video.getCode(), video.getActresses(), video.getTags(),
+                    video.getDuration(), video.getDetailUrl());
+        }
     }
 
-    private String formatTags(String tags) {
-        if (tags == null) return "";
-        String[] tagArr = tags.split(",\\s*");
-        StringBuilder sb = new StringBuilder();
-        for (String tag : tagArr) {
-            sb.append("#").append(escapeMarkdown(tag.trim())).append(" ");
+    private static void appendTags(StringBuilder sb, String tags) {
+        boolean first = true;
+        for (String tag : LabelUtils.split(tags)) {
+            if (!first) {
+                sb.append(' ');
+            }
+            sb.append('#');
+            MarkdownEscaper.appendEscaped(sb, tag);
+            first = false;
         }
-        return sb.toString().trim();
     }
 
     public boolean sendVideoWithCaption(Long chatId, String videoUrl, String thumbUrl, String caption) {
+        return sendVideoWithCaption(chatId, videoUrl, thumbUrl, caption, Priority.REPLY);
+    }
+
+    private boolean sendVideoWithCaption(Long chatId, String videoUrl, String thumbUrl, String caption,
+                                         Priority priority) {
         try {
             SendVideo sendVideo = new SendVideo();
             sendVideo.setChatId(chatId.toString());
@@ -128,26 +225,37 @@ public class TelegramMessageService {
             }
             sendVideo.setCaption(caption);
             sendVideo.setParseMode("Markdown");
-            bot.execute(sendVideo);
+            execute("sendVideo", priority, () -> bot.execute(sendVideo));
             return true;
         } catch (TelegramApiException e) {
+            if (isChatUnavailable(e)) {
+                log.warn("聊天不可用，放弃推送: chatId={}, error={}", chatId, e.getMessage());
+                return false;
+            }
             log.warn("发送视频失败，尝试发送图片: {}", e.getMessage());
-            return sendPhotoWithCaption(chatId, thumbUrl, caption);
+            telegramMetrics.recordFallback("video", "photo");
+            return sendPhotoWithCaption(chatId, thumbUrl, caption, priority);
         }
     }
 
     public boolean sendPhotoWithCaption(Long chatId, String photoUrl, String caption) {
+        return sendPhotoWithCaption(chatId, photoUrl, caption, Priority.REPLY);
+    }
+
+    private boolean sendPhotoWithCaption(Long chatId, String photoUrl, String caption, Priority priority) {
         // 验证 URL 是否有效
         if (photoUrl == null || photoUrl.trim().isEmpty()) {
             log.warn("图片 URL 为空，直接发送纯文本");
-            sendMarkdown(chatId, caption);
+            telegramMetrics.recordFallback("photo", "text");
+            sendMarkdown(chatId, caption, priority);
             return true;
         }
 
         // 验证 URL 格式
         if (!photoUrl.startsWith("http://") && !photoUrl.startsWith("https://")) {
             log.warn("图片 URL 格式无效: {}, 直接发送纯文本", photoUrl);
-            sendMarkdown(chatId, caption);
+            telegramMetrics.recordFallback("photo", "text");
+            sendMarkdown(chatId, caption, priority);
             return true;
         }
 
@@ -157,24 +265,242 @@ public class TelegramMessageService {
             sendPhoto.setPhoto(new InputFile(photoUrl.trim()));
             sendPhoto.setCaption(caption);
             sendPhoto.setParseMode("Markdown");
-            bot.execute(sendPhoto);
+            execute("sendPhoto", priority, () -> bot.execute(sendPhoto));
             return true;
         } catch (TelegramApiException e) {
+            if (isChatUnavailable(e)) {
+                log.warn("聊天不可用，放弃推送: chatId={}, error={}", chatId, e.getMessage());
+                return false;
+            }
             log.warn("发送图片失败 (URL: {}): {}, 发送纯文本", photoUrl, e.getMessage());
-            sendMarkdown(chatId, caption);
+            telegramMetrics.recordFallback("photo", "text");
+            sendMarkdown(chatId, caption, priority);
             return true;
         }
     }
 
     public void sendMarkdown(Long chatId, String text) {
+        sendMarkdown(chatId, text, Priority.REPLY);
+    }
+
+    private void sendMarkdown(Long chatId, String text, Priority priority) {
         try {
             SendMessage message = new SendMessage();
             message.setChatId(chatId.toString());
             message.setText(text);
             message.setParseMode("Markdown");
-            bot.execute(message);
+            execute("sendMessage", priority, () -> bot.execute(message));
+        } catch (TelegramApiException e) {
+            log.error("发送消息失败", e);
+        }
+    }
+
+    /**
+     * 发送纯文本消息（命令回复）
+     */
+    public void sendText(Long chatId, String text) throws TelegramApiException {
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(text);
+        withConnection(Priority.REPLY, () -> bot.execute(message));
+    }
+
+    /**
+     * 发送带内联键盘的图片消息，图片无效时发送带键盘的纯文本
+     */
+    public void sendPhotoWithKeyboard(Long chatId, String photoUrl, String caption, InlineKeyboardMarkup keyboard) {
+        if (isValidUrl(photoUrl)) {
+            try {
+                SendPhoto sendPhoto = new SendPhoto();
+                sendPhoto.setChatId(chatId.toString());
+                sendPhoto.setPhoto(new InputFile(photoUrl.trim()));
+                sendPhoto.setCaption(caption);
+                sendPhoto.setParseMode("Markdown");
+                sendPhoto.setReplyMarkup(keyboard);
+                withConnection(Priority.REPLY, () -> bot.execute(sendPhoto));
+                return;
+            } catch (TelegramApiException e) {
+                log.warn("发送图片失败 (URL: {}): {}, 发送纯文本", photoUrl, e.getMessage());
+            }
+        }
+
+        try {
+            SendMessage message = new SendMessage();
+            message.setChatId(chatId.toString());
+            message.setText(caption);
+            message.setParseMode("Markdown");
+            message.setReplyMarkup(keyboard);
+            withConnection(Priority.REPLY, () -> bot.execute(message));
         } catch (TelegramApiException e) {
             log.error("发送消息失败", e);
         }
     }
+
+    /**
+     * 原地编辑消息内容和内联键盘
+     * @param photoMessage 原消息是否为图片消息（图片消息只能编辑媒体或说明文字）
+     */
+    public void editMessage(Long chatId, Integer messageId, boolean photoMessage,
+                            String photoUrl, String caption, InlineKeyboardMarkup keyboard) {
+        try {
+            if (!photoMessage) {
+                EditMessageText edit = new EditMessageText();
+                edit.setChatId(chatId.toString());
+                edit.setMessageId(messageId);
+                edit.setText(caption);
+                edit.setParseMode("Markdown");
+                edit.setReplyMarkup(keyboard);
+                withConnection(Priority.REPLY, () -> bot.execute(edit));
+            } else if (isValidUrl(photoUrl)) {
+                InputMediaPhoto media = new InputMediaPhoto(photoUrl.trim());
+                media.setCaption(caption);
+                media.setParseMode("Markdown");
+
+                EditMessageMedia edit = new EditMessageMedia();
+                edit.setChatId(chatId.toString());
+                edit.setMessageId(messageId);
+                edit.setMedia(media);
+                edit.setReplyMarkup(keyboard);
+                withConnection(Priority.REPLY, () -> bot.execute(edit));
+            } else {
+                EditMessageCaption edit = new EditMessageCaption();
+                edit.setChatId(chatId.toString());
+                edit.setMessageId(messageId);
+                edit.setCaption(caption);
+                edit.setParseMode("Markdown");
+                edit.setReplyMarkup(keyboard);
+                withConnection(Priority.REPLY, () -> bot.execute(edit));
+            }
+        } catch (TelegramApiException e) {
+            if (isNotModified(e)) {
+                // 快速连点同一个翻页按钮时内容未变化，Telegram 会返回 "message is not modified"，忽略即可
+                log.debug("消息内容未变化: chatId={}, messageId={}", chatId, messageId);
+            } else {
+                log.warn("编辑消息失败: chatId={}, messageId={}, error={}", chatId, messageId, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isNotModified(TelegramApiException e) {
+        return e instanceof TelegramApiRequestException re && re.getApiResponse() != null
+                && re.getApiResponse().contains("message is not modified");
+    }
+
+    /**
+     * 应答回调查询，结束客户端按钮上的加载状态
+     */
+    public void answerCallback(String callbackQueryId, String text) {
+        try {
+            AnswerCallbackQuery answer = new AnswerCallbackQuery();
+            answer.setCallbackQueryId(callbackQueryId);
+            answer.setText(text);
+            withConnection(Priority.REPLY, () -> bot.execute(answer));
+        } catch (TelegramApiException e) {
+            log.debug("应答回调查询失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 执行发送请求，整个过程（含限流等待和重试）为一个 span（telegram.send）
+     */
+    private <T> T execute(String method, Priority priority, TelegramCall<T> call) throws TelegramApiException {
+        Observation observation = Observation.createNotStarted("telegram.send", observationRegistry)
+                .contextualName(method)
+                .lowCardinalityKeyValue("method", method)
+                .start();
+        Observation.Scope scope = observation.openScope();
+        try {
+            return executeWithRetry(method, priority, call, observation);
+        } catch (TelegramApiException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            scope.close();
+            observation.stop();
+        }
+    }
+
+    /**
+     * 执行发送请求并记录耗时，被限流（429）时按 Telegram 返回的 retry_after 等待后重试
+     */
+    private <T> T executeWithRetry(String method, Priority priority, TelegramCall<T> call, Observation observation)
+            throws TelegramApiException {
+        for (int attempt = 0; ; attempt++) {
+            TelegramSendEvent event = new TelegramSendEvent();
+            event.begin();
+            long start = System.nanoTime();
+            try {
+                T result = withConnection(priority, call);
+                recordCall(method, null, start, event, attempt);
+                return result;
+            } catch (TelegramApiRequestException e) {
+                recordCall(method, e, start, event, attempt);
+                Integer retryAfter = e.getParameters() != null ? e.getParameters().getRetryAfter() : null;
+                if (e.getErrorCode() == null || e.getErrorCode() != 429 || retryAfter == null
+                        || attempt >= maxRetries || retryAfter > maxRetryAfter.toSeconds()) {
+                    throw e;
+                }
+                log.warn("Telegram 限流，{} 秒后重试 ({}/{})", retryAfter, attempt + 1, maxRetries);
+                observation.event(Observation.Event.of("rate-limited", "retry after " + retryAfter + "s"));
+                try {
+                    Thread.sleep(retryAfter * 1000L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            } catch (TelegramApiException e) {
+                recordCall(method, e, start, event, attempt);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 取得连接许可后执行请求
+     */
+    private <T> T withConnection(Priority priority, TelegramCall<T> call) throws TelegramApiException {
+        try {
+            connectionGate.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TelegramApiException("等待 Telegram 连接时被中断", e);
+        }
+        try {
+            return call.execute();
+        } finally {
+            connectionGate.release();
+        }
+    }
+
+    /**
+     * 记录单次调用的指标，开启 JFR 录制时同时提交 TelegramSendEvent
+     */
+    private void recordCall(String method, TelegramApiException error, long start,
+                            TelegramSendEvent event, int attempt) {
+        telegramMetrics.recordCall(method, error, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.outcome = TelegramMetrics.outcome(error);
+            event.attempt = attempt;
+            event.commit();
+        }
+    }
+
+    /**
+     * 聊天不可用（Bot 被拉黑或移出群组），换一种消息类型重发也不会成功
+     */
+    private boolean isChatUnavailable(TelegramApiException e) {
+        return e instanceof TelegramApiRequestException re
+                && re.getErrorCode() != null && re.getErrorCode() == 403;
+    }
+
+    @FunctionalInterface
+    private interface TelegramCall<T> {
+        T execute() throws TelegramApiException;
+    }
+
+    private boolean isValidUrl(String url) {
+        return url != null && (url.startsWith("http://") || url.startsWith("https://"));
+    }
 }
@@ -0,0 +1,68 @@
+package com.missav.bot.telegram;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Telegram 发送指标：各 API 方法耗时与结果、消息类型降级
+ */
+@Component
+@RequiredArgsConstructor
+public class TelegramMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 记录一次 API 调用（每次重试单独记录）
+     * @param error 调用失败时的异常，成功时为 null
+     */
+    public void recordCall(String method, TelegramApiException error, long nanos) {
+        Timer.builder("telegram.api")
+                .description("Telegram Bot API 调用耗时")
+                .tag("method", method)
+                .tag("outcome", outcome(error))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次消息类型降级，如 video -> photo、photo -> text、album -> single
+     */
+    public void recordFallback(String from, String to) {
+        Counter.builder("telegram.fallback")
+                .description("发送失败后降级为其他消息类型的次数")
+                .tag("from", from)
+                .tag("to", to)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 按错误码归类：429 限流、403 被拉黑/移出群组、400 请求无效（如图片地址不可用）
+     */
+    static String outcome(TelegramApiException error) {
+        if (error == null) {
+            return "success";
+        }
+        if (!(error instanceof TelegramApiRequestException re)) {
+            return "network_error";
+        }
+        if (re.getErrorCode() == null) {
+            return "api_error";
+        }
+        return switch (re.getErrorCode()) {
+            case 429 -> "rate_limited";
+            case 403 -> "forbidden";
+            case 400 -> "bad_request";
+            default -> "api_error";
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.missav.bot.telegram.stub;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地假 Telegram Bot API（仅离线/压测环境启用）
+ * 将 telegram.bot.base-url 指向 http://localhost:{port}/fake-telegram/bot 即可让所有发送请求落到这里
+ * 按方法统计调用次数，并可配置固定延迟模拟网络耗时
+ */
+@Slf4j
+@RestController
+@RequestMapping("/fake-telegram")
+@ConditionalOnProperty(name = "telegram.stub.enabled", havingValue = "true")
+public class FakeTelegramApiController {
+
+    private static final Set<String> BOOLEAN_METHODS = Set.of(
+        "setMyCommands", "deleteWebhook", "setWebhook", "answerCallbackQuery", "deleteMessage");
+
+    private static final Set<String> MESSAGE_METHODS = Set.of(
+        "sendMessage", "sendPhoto", "sendVideo", "editMessageText", "editMessageCaption", "editMessageMedia");
+
+    @Value("${telegram.stub.latency:0ms}")
+    private Duration latency;
+
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger messageId = new AtomicInteger();
+
+    @PostMapping("/{bot}/{method}")
+    public Map<String, Object> call(@PathVariable String bot, @PathVariable String method) throws InterruptedException {
+        calls.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+        if (!latency.isZero()) {
+            Thread.sleep(latency.toMillis());
+        }
+
+        Object result;
+        if (BOOLEAN_METHODS.contains(method)) {
+            result = true;
+        } else if (MESSAGE_METHODS.contains(method)) {
+            result = message();
+        } else if ("sendMediaGroup".equals(method)) {
+            result = List.of(message());
+        } else if ("getUpdates".equals(method)) {
+            result = List.of();
+        } else if ("getMe".equals(method)) {
+            result = Map.of("id", 1, "is_bot", true, "first_name", "stub", "username", "stub_bot");
+        } else {
+            log.debug("假 Telegram API 未知方法: {}", method);
+            result = true;
+        }
+        return Map.of("ok", true, "result", result);
+    }
+
+    /**
+     * 各方法调用次数
+     */
+    @GetMapping("/stats")
+    public Map<String, Long> stats() {
+        Map<String, Long> result = new TreeMap<>();
+        calls.forEach((method, count) -> result.put(method, count.get()));
+        return result;
+    }
+
+    private Map<String, Object> message() {
+        return Map.of(
+            "message_id", messageId.incrementAndGet(),
+            "date", Instant.now().getEpochSecond(),
+            "chat", Map.of("id", 0, "type", "private"));
+    }
+}
@@ -2,9 +2,13 @@ package com.missav.bot.video.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.missav.bot.common.CursorPage;
 import com.missav.bot.common.Result;
+import com.missav.bot.video.dto.VideoListItem;
 import com.missav.bot.video.entity.Video;
 import com.missav.bot.video.mapper.VideoMapper;
+import com.missav.bot.video.search.VideoSearchIndex;
+import com.missav.bot.video.service.ILatestVideoService;
 import com.missav.bot.video.service.IVideoService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +25,8 @@ public class VideoController {
 
     private final IVideoService videoService;
     private final VideoMapper videoMapper;
+    private final VideoSearchIndex videoSearchIndex;
+    private final ILatestVideoService latestVideoService;
 
     /**
      * 分页查询视频列表
@@ -34,6 +40,20 @@ public class VideoController {
         return Result.success(result);
     }
 
+    /**
+     * 游标分页查询视频列表（精简字段），深分页与首页开销相同
+     */
+    @GetMapping("/scroll")
+    public Result<CursorPage<VideoListItem>> scroll(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") Integer size) {
+        if (size < 1 || size > 100) {
+            return Result.error(400, "分页参数无效");
+        }
+        List<VideoListItem> rows = videoMapper.selectListItems(cursor, size + 1);
+        return Result.success(CursorPage.of(rows, size, VideoListItem::getId));
+    }
+
     /**
      * 根据ID查询视频
      */
@@ -51,13 +71,27 @@ public class VideoController {
      */
     @GetMapping("/code/{code}")
     public Result<Video> getByCode(@PathVariable String code) {
-        Video video = videoMapper.selectByCode(code);
+        Video video = videoService.getByCode(code);
         if (video == null) {
             return Result.error(404, "视频不存在");
         }
         return Result.success(video);
     }
 
+    /**
+     * 全文搜索视频（番号、标题、演员、标签，按相关度排序）
+     */
+    @GetMapping("/search")
+    public Result<IPage<Video>> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "10") Integer size) {
+        if (page < 1 || size < 1 || size > 100) {
+            return Result.error(400, "分页参数无效");
+        }
+        return Result.success(videoSearchIndex.search(q, page, size));
+    }
+
     /**
      * 搜索视频（按演员）
      */
@@ -125,11 +159,15 @@ public class VideoController {
     }
 
     /**
-     * 查询最新视频
+     * 查询最新视频（读取内存中的最新列表）
      */
     @GetMapping("/latest")
-    public Result<List<Video>> getLatest() {
-        List<Video> videos = videoMapper.selectTop50ByCreatedTimeDesc();
-        return Result.success(videos);
+    public Result<IPage<Video>> getLatest(
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "50") Integer size) {
+        if (page < 1 || size < 1) {
+            return Result.error(400, "分页参数无效");
+        }
+        return Result.success(latestVideoService.getLatestPage(page, size));
     }
 }
@@ -0,0 +1,20 @@
+package com.missav.bot.video.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 视频列表项（只包含列表展示所需字段）
+ */
+@Data
+public class VideoListItem {
+
+    private Long id;
+    private String code;
+    private String title;
+    private String actresses;
+    private String coverUrl;
+    private Boolean pushed;
+    private LocalDateTime createdTime;
+}
@@ -0,0 +1,45 @@
+package com.missav.bot.video.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 新视频事件，与视频在同一事务内写入，推送完成（标记已推送）时删除
+ * 转发状态保存在行上：转发后推迟到 available_at 再重试，超过最大转发次数后搁置
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("video_outbox")
+public class VideoOutbox {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long videoId;
+
+    /**
+     * 已转发次数
+     */
+    private Integer attempts;
+
+    /**
+     * 可转发时间，转发后推迟一个重试间隔，期间未完成推送时再次转发
+     */
+    private LocalDateTime availableAt;
+
+    /**
+     * 搁置时间，非空时不再转发
+     */
+    private LocalDateTime parkedTime;
+
+    private LocalDateTime createdTime;
+}
@@ -0,0 +1,57 @@
+package com.missav.bot.video.mapper;
+
+import com.missav.bot.video.entity.Video;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 视频演员/标签关联表
+ */
+@Mapper
+public interface VideoLabelMapper {
+
+    /**
+     * 批量写入视频演员
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO video_actress (video_id, name) VALUES " +
+            "<foreach collection='names' item='name' separator=','>" +
+            "(#{videoId}, #{name})" +
+            "</foreach>" +
+            "</script>")
+    int insertActresses(@Param("videoId") Long videoId, @Param("names") List<String> names);
+
+    /**
+     * 批量写入视频标签
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO video_tag (video_id, name) VALUES " +
+            "<foreach collection='names' item='name' separator=','>" +
+            "(#{videoId}, #{name})" +
+            "</foreach>" +
+            "</script>")
+    int insertTags(@Param("videoId") Long videoId, @Param("names") List<String> names);
+
+    @Delete("DELETE FROM video_actress WHERE video_id = #{videoId}")
+    int deleteActresses(@Param("videoId") Long videoId);
+
+    @Delete("DELETE FROM video_tag WHERE video_id = #{videoId}")
+    int deleteTags(@Param("videoId") Long videoId);
+
+    /**
+     * 查找尚未写入关联表的视频（用于回填历史数据）
+     * 演员和标签都为空（或只有逗号、空格）的视频不会产生关联记录，直接排除，避免每次启动重复扫描
+     */
+    @Select("SELECT id, actresses, tags FROM videos v " +
+            "WHERE v.id > #{afterId} " +
+            "AND (TRIM(REPLACE(v.actresses, ',', '')) <> '' OR TRIM(REPLACE(v.tags, ',', '')) <> '') " +
+            "AND NOT EXISTS (SELECT 1 FROM video_actress a WHERE a.video_id = v.id) " +
+            "AND NOT EXISTS (SELECT 1 FROM video_tag t WHERE t.video_id = v.id) " +
+            "ORDER BY v.id LIMIT #{limit}")
+    List<Video> selectUnindexedVideos(@Param("afterId") Long afterId, @Param("limit") int limit);
+}
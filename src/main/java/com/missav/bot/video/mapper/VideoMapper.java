@@ -1,10 +1,15 @@
 package com.missav.bot.video.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.missav.bot.video.dto.VideoListItem;
 import com.missav.bot.video.entity.Video;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,6 +29,12 @@ public interface VideoMapper extends BaseMapper<Video> {
     @Select("SELECT COUNT(*) > 0 FROM videos WHERE code = #{code}")
     boolean existsByCode(@Param("code") String code);
 
+    /**
+     * 标记视频为已推送
+     */
+    @Update("UPDATE videos SET pushed = 1, updated_time = NOW() WHERE id = #{id}")
+    int markAsPushed(@Param("id") Long id);
+
     /**
      * 查找未推送的视频
      */
@@ -31,15 +42,17 @@ public interface VideoMapper extends BaseMapper<Video> {
     List<Video> selectUnpushedVideos();
 
     /**
-     * 根据演员查找视频
+     * 根据演员查找视频（精确匹配，走 video_actress 索引）
      */
-    @Select("SELECT * FROM videos WHERE actresses LIKE CONCAT('%', #{actress}, '%')")
+    @Select("SELECT v.* FROM videos v JOIN video_actress a ON a.video_id = v.id " +
+            "WHERE a.name = #{actress} ORDER BY v.id DESC")
     List<Video> selectByActress(@Param("actress") String actress);
 
     /**
-     * 根据标签查找视频
+     * 根据标签查找视频（精确匹配，走 video_tag 索引）
      */
-    @Select("SELECT * FROM videos WHERE tags LIKE CONCAT('%', #{tag}, '%')")
+    @Select("SELECT v.* FROM videos v JOIN video_tag t ON t.video_id = v.id " +
+            "WHERE t.name = #{tag} ORDER BY v.id DESC")
     List<Video> selectByTag(@Param("tag") String tag);
 
     /**
@@ -51,8 +64,49 @@ public interface VideoMapper extends BaseMapper<Video> {
     /**
      * 查找最新的N条视频
      */
-    @Select("SELECT * FROM videos ORDER BY created_time DESC LIMIT 50")
-    List<Video> selectTop50ByCreatedTimeDesc();
+    @Select("SELECT * FROM videos ORDER BY created_time DESC, id DESC LIMIT #{limit}")
+    List<Video> selectLatest(@Param("limit") int limit);
+
+    /**
+     * 某时间之后新增或更新的视频（多节点时同步其他节点写入的视频，走 idx_created_time / idx_updated_time）
+     */
+    @Select("SELECT * FROM videos WHERE created_time >= #{since} " +
+            "UNION SELECT * FROM videos WHERE updated_time >= #{since}")
+    List<Video> selectChangedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 按 ID 顺序分批读取视频（用于构建内存索引）
+     */
+    @Select("SELECT * FROM videos WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Video> selectBatchAfterId(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 游标分页查询视频列表（按 ID 倒序，cursor 为空时从最新开始）
+     */
+    @Select("<script>" +
+            "SELECT id, code, title, actresses, cover_url, pushed, created_time FROM videos " +
+            "<where><if test='cursor != null'>id &lt; #{cursor}</if></where> " +
+            "ORDER BY id DESC LIMIT #{limit}" +
+            "</script>")
+    List<VideoListItem> selectListItems(@Param("cursor") Long cursor, @Param("limit") int limit);
+
+    /**
+     * 按条件流式读取视频（用于导出，需在事务内消费）
+     * MySQL 使用 fetchSize = Integer.MIN_VALUE 逐行流式读取，只影响本语句；其他数据库按 fetchSize 分批读取
+     */
+    @Select("<script>" +
+            "SELECT * FROM videos " +
+            "<where>" +
+            "<if test='from != null'>created_time &gt;= #{from}</if>" +
+            "<if test='to != null'>AND created_time &lt; #{to}</if>" +
+            "<if test='pushed != null'>AND pushed = #{pushed}</if>" +
+            "</where> " +
+            "ORDER BY id" +
+            "</script>")
+    @Options(databaseId = "mysql", fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<Video> selectForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                  @Param("pushed") Boolean pushed);
 
     /**
      * 批量检查番号是否存在
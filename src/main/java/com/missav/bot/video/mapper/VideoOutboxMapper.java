@@ -0,0 +1,46 @@
+package com.missav.bot.video.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.missav.bot.video.entity.VideoOutbox;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+@Mapper
+public interface VideoOutboxMapper extends BaseMapper<VideoOutbox> {
+
+    @Insert("INSERT INTO video_outbox (video_id, attempts, available_at, created_time) VALUES (#{videoId}, 0, NOW(), NOW())")
+    int insertEvent(@Param("videoId") Long videoId);
+
+    /**
+     * 按 ID 顺序读取已到可转发时间且未搁置的事件
+     * @param includeRetries 是否包含已转发过的事件，为 false 时只读取从未转发的新事件
+     */
+    @Select("<script>" +
+            "SELECT * FROM video_outbox WHERE parked_time IS NULL AND available_at &lt;= NOW() " +
+            "<if test='!includeRetries'>AND attempts = 0 </if>" +
+            "ORDER BY id LIMIT #{limit}" +
+            "</script>")
+    List<VideoOutbox> selectAvailable(@Param("includeRetries") boolean includeRetries, @Param("limit") int limit);
+
+    /**
+     * 记一次转发，并推迟到重试间隔之后才可再次转发
+     */
+    @Update("UPDATE video_outbox SET attempts = attempts + 1, " +
+            "available_at = TIMESTAMPADD(SECOND, #{retrySeconds}, NOW()) WHERE id = #{id}")
+    int markRelayed(@Param("id") Long id, @Param("retrySeconds") long retrySeconds);
+
+    /**
+     * 搁置事件，不再转发
+     */
+    @Update("UPDATE video_outbox SET parked_time = NOW() WHERE id = #{id}")
+    int park(@Param("id") Long id);
+
+    @Delete("DELETE FROM video_outbox WHERE video_id = #{videoId}")
+    int deleteByVideoId(@Param("videoId") Long videoId);
+}
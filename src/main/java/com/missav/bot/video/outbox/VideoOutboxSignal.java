@@ -0,0 +1,31 @@
+package com.missav.bot.video.outbox;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 新视频事件提交后通知转发线程立即处理，不必等下一次轮询
+ */
+@Component
+public class VideoOutboxSignal {
+
+    private final Semaphore signal = new Semaphore(0);
+
+    public void nudge() {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    }
+
+    /**
+     * 等待通知，超时返回 false；多次通知合并为一次
+     */
+    public boolean await(Duration timeout) throws InterruptedException {
+        boolean nudged = signal.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        signal.drainPermits();
+        return nudged;
+    }
+}
@@ -0,0 +1,67 @@
+package com.missav.bot.video.search;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 搜索分词器
+ * 字母数字连续片段作为一个词，中日文字符按相邻两字（bigram）切分，单字片段保留单字
+ */
+public final class SearchTokenizer {
+
+    private SearchTokenizer() {
+    }
+
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase();
+        int length = lower.length();
+        int i = 0;
+        while (i < length) {
+            char c = lower.charAt(i);
+            if (Character.isLetterOrDigit(c) && !isCjk(c)) {
+                int start = i;
+                while (i < length && Character.isLetterOrDigit(lower.charAt(i)) && !isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                tokens.add(lower.substring(start, i));
+            } else if (isCjk(c)) {
+                int start = i;
+                while (i < length && isCjk(lower.charAt(i))) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    tokens.add(lower.substring(start, i));
+                } else {
+                    for (int j = start; j < i - 1; j++) {
+                        tokens.add(lower.substring(j, j + 2));
+                    }
+                }
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 番号整体作为一个词（如 ssis-001），便于精确命中
+     */
+    public static String normalizeCode(String code) {
+        return code == null ? null : code.trim().toLowerCase();
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+        return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.HANGUL_SYLLABLES;
+    }
+}
@@ -0,0 +1,259 @@
+package com.missav.bot.video.search;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.mapper.VideoMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 视频全文检索内存倒排索引
+ * 覆盖番号、标题、演员、标签四个字段，启动时全量构建，之后随视频写入增量更新
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VideoSearchIndex {
+
+    private static final int CODE_WEIGHT = 8;
+    private static final int ACTRESS_WEIGHT = 4;
+    private static final int TAG_WEIGHT = 2;
+    private static final int TITLE_WEIGHT = 1;
+
+    /**
+     * 番号完全一致时的额外加分，保证精确命中排在最前
+     */
+    private static final int EXACT_CODE_BONUS = 100;
+
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final VideoMapper videoMapper;
+
+    /**
+     * 词 -> (视频ID -> 权重)
+     */
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+
+    /**
+     * 视频ID -> 视频快照（搜索结果直接从这里返回，不回查数据库）
+     */
+    private final Map<Long, Video> documents = new HashMap<>();
+
+    /**
+     * 视频ID -> 该视频的全部词，删除/更新时用于清理倒排表
+     */
+    private final Map<Long, Set<String>> documentTokens = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 启动后按 ID 分批加载全部视频构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        try {
+            long start = System.currentTimeMillis();
+            long afterId = 0;
+            List<Video> batch;
+            do {
+                batch = videoMapper.selectBatchAfterId(afterId, BUILD_BATCH_SIZE);
+                for (Video video : batch) {
+                    add(video);
+                    afterId = video.getId();
+                }
+            } while (batch.size() == BUILD_BATCH_SIZE);
+            log.info("搜索索引构建完成: {} 个视频, {} 个词, 耗时{}ms",
+                size(), tokenCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("搜索索引构建失败", e);
+        }
+    }
+
+    /**
+     * 新增或更新视频索引
+     */
+    public void add(Video video) {
+        if (video == null || video.getId() == null) {
+            return;
+        }
+
+        Map<String, Integer> weights = new HashMap<>();
+        accumulate(weights, video.getCode(), CODE_WEIGHT);
+        accumulate(weights, video.getActresses(), ACTRESS_WEIGHT);
+        accumulate(weights, video.getTags(), TAG_WEIGHT);
+        accumulate(weights, video.getTitle(), TITLE_WEIGHT);
+
+        Video snapshot = snapshot(video);
+        lock.writeLock().lock();
+        try {
+            removeInternal(video.getId());
+            documents.put(video.getId(), snapshot);
+            documentTokens.put(video.getId(), weights.keySet());
+            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                    .put(video.getId(), entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除视频索引
+     */
+    public void remove(Long videoId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(videoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索视频，所有查询词都需命中，按相关度降序、同分按 ID 降序（新视频优先）
+     * @param page 页码（从 1 开始）
+     * @param size 每页数量
+     */
+    public IPage<Video> search(String query, long page, long size) {
+        Page<Video> result = new Page<>(page, size, 0);
+        Set<String> queryTokens = SearchTokenizer.tokenize(query);
+        if (queryTokens.isEmpty() || page < 1 || size < 1) {
+            return result;
+        }
+        String exactCode = SearchTokenizer.normalizeCode(query);
+
+        lock.readLock().lock();
+        try {
+            // 从最短的倒排表开始求交集
+            List<Map<Long, Integer>> lists = new ArrayList<>(queryTokens.size());
+            for (String token : queryTokens) {
+                Map<Long, Integer> posting = postings.get(token);
+                if (posting == null) {
+                    return result;
+                }
+                lists.add(posting);
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            long topK = page * size;
+            Comparator<long[]> order = Comparator.<long[]>comparingLong(hit -> hit[1]).thenComparingLong(hit -> hit[0]);
+            PriorityQueue<long[]> heap = new PriorityQueue<>(order);
+            long total = 0;
+
+            candidates:
+            for (Map.Entry<Long, Integer> entry : lists.get(0).entrySet()) {
+                Long videoId = entry.getKey();
+                long score = entry.getValue();
+                for (int i = 1; i < lists.size(); i++) {
+                    Integer weight = lists.get(i).get(videoId);
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += weight;
+                }
+                if (exactCode != null && exactCode.equals(SearchTokenizer.normalizeCode(documents.get(videoId).getCode()))) {
+                    score += EXACT_CODE_BONUS;
+                }
+
+                total++;
+                long[] hit = {videoId, score};
+                if (heap.size() < topK) {
+                    heap.offer(hit);
+                } else if (order.compare(hit, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.offer(hit);
+                }
+            }
+
+            List<long[]> ranked = new ArrayList<>(heap);
+            ranked.sort(order.reversed());
+            List<Video> records = new ArrayList<>((int) size);
+            for (int i = (int) ((page - 1) * size); i < ranked.size(); i++) {
+                records.add(documents.get(ranked.get(i)[0]));
+            }
+
+            result.setTotal(total);
+            result.setRecords(records);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tokenCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long videoId) {
+        documents.remove(videoId);
+        Set<String> tokens = documentTokens.remove(videoId);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Map<Long, Integer> posting = postings.get(token);
+            if (posting != null) {
+                posting.remove(videoId);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private void accumulate(Map<String, Integer> weights, String text, int weight) {
+        for (String token : SearchTokenizer.tokenize(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * 只保留展示所需字段，避免持有调用方的实体对象
+     */
+    private Video snapshot(Video video) {
+        Video snapshot = Video.builder()
+                .id(video.getId())
+                .code(video.getCode())
+                .title(video.getTitle())
+                .actresses(video.getActresses())
+                .tags(video.getTags())
+                .duration(video.getDuration())
+                .releaseDate(video.getReleaseDate())
+                .coverUrl(video.getCoverUrl())
+                .previewUrl(video.getPreviewUrl())
+                .detailUrl(video.getDetailUrl())
+                .pushed(video.getPushed())
+                .build();
+        snapshot.setCreatedTime(video.getCreatedTime());
+        return snapshot;
+    }
+}
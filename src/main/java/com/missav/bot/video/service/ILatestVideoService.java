@@ -0,0 +1,45 @@
+package com.missav.bot.video.service;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.missav.bot.video.entity.Video;
+
+import java.util.List;
+
+/**
+ * 最新视频列表服务
+ * 内存中维护最新 N 个视频，读取时不访问数据库
+ */
+public interface ILatestVideoService {
+
+    /**
+     * 获取最新视频列表（按入库时间倒序，只读）
+     */
+    List<Video> getLatestVideos();
+
+    /**
+     * 分页获取最新视频
+     * @param page 页码（从 1 开始）
+     * @param size 每页数量
+     */
+    IPage<Video> getLatestPage(long page, long size);
+
+    /**
+     * 视频入库后调用，放到列表最前面
+     */
+    void onVideoSaved(Video video);
+
+    /**
+     * 视频更新后调用，替换列表中的旧数据
+     */
+    void onVideoUpdated(Video video);
+
+    /**
+     * 视频删除后调用
+     */
+    void onVideoRemoved(Long videoId);
+
+    /**
+     * 从数据库重新加载列表（多节点时同步其他节点的写入）
+     */
+    void refresh();
+}
@@ -5,6 +5,30 @@ import com.missav.bot.video.entity.Video;
 
 /**
  * 视频服务接口
+ * 通过本服务写入的视频会同步维护演员/标签关联表
  */
 public interface IVideoService extends IService<Video> {
+
+    /**
+     * 根据番号查询视频（走缓存）
+     * @return 视频，不存在时返回 null
+     */
+    Video getByCode(String code);
+
+    /**
+     * 使视频缓存失效（视频被直接 SQL 修改后调用）
+     */
+    void evictCache(Long videoId);
+
+    /**
+     * 将视频的演员、标签同步到关联表（覆盖写入）
+     * @param video 视频（需包含 ID）
+     */
+    void syncLabels(Video video);
+
+    /**
+     * 回填尚未写入关联表的历史视频
+     * @return 回填的视频数
+     */
+    int backfillLabels();
 }
@@ -0,0 +1,115 @@
+package com.missav.bot.video.service.impl;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.mapper.VideoMapper;
+import com.missav.bot.video.service.ILatestVideoService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最新视频列表服务实现
+ * 启动时加载一次最新 N 个视频，之后随入库/更新/删除增量维护；多节点时由 VideoViewSync 定期重新加载
+ * 读多写少，写入时复制出新列表，读取直接使用不可变快照
+ * 列表保存视频的副本，调用方之后修改传入的对象不影响列表；删除导致列表不足 N 个时从数据库补齐
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LatestVideoServiceImpl implements ILatestVideoService {
+
+    private final VideoMapper videoMapper;
+
+    @Value("${video.latest.capacity:100}")
+    private int capacity;
+
+    private volatile List<Video> snapshot = List.of();
+
+    @PostConstruct
+    public void load() {
+        try {
+            refresh();
+            log.info("最新视频列表加载完成，共 {} 个", snapshot.size());
+        } catch (Exception e) {
+            log.error("最新视频列表加载失败", e);
+        }
+    }
+
+    @Override
+    public synchronized void refresh() {
+        snapshot = List.copyOf(videoMapper.selectLatest(capacity));
+    }
+
+    @Override
+    public List<Video> getLatestVideos() {
+        return snapshot;
+    }
+
+    @Override
+    public IPage<Video> getLatestPage(long page, long size) {
+        List<Video> videos = snapshot;
+        Page<Video> result = new Page<>(page, size, videos.size());
+        if (page < 1 || size < 1) {
+            return result;
+        }
+        long start = (page - 1) * size;
+        if (start < videos.size()) {
+            result.setRecords(videos.subList((int) start, (int) Math.min(start + size, videos.size())));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void onVideoSaved(Video video) {
+        List<Video> videos = new ArrayList<>(Math.min(snapshot.size() + 1, capacity));
+        videos.add(copyOf(video));
+        for (Video existing : snapshot) {
+            if (videos.size() >= capacity) {
+                break;
+            }
+            if (!existing.getId().equals(video.getId())) {
+                videos.add(existing);
+            }
+        }
+        snapshot = List.copyOf(videos);
+    }
+
+    @Override
+    public synchronized void onVideoUpdated(Video video) {
+        List<Video> videos = new ArrayList<>(snapshot);
+        Video copy = copyOf(video);
+        videos.replaceAll(existing -> existing.getId().equals(video.getId()) ? copy : existing);
+        snapshot = List.copyOf(videos);
+    }
+
+    @Override
+    public synchronized void onVideoRemoved(Long videoId) {
+        List<Video> videos = new ArrayList<>(snapshot);
+        if (!videos.removeIf(existing -> existing.getId().equals(videoId))) {
+            return;
+        }
+        if (snapshot.size() >= capacity) {
+            // 删除前列表是满的，数据库中可能还有更早的视频，重新加载补齐
+            try {
+                videos = videoMapper.selectLatest(capacity);
+            } catch (Exception e) {
+                log.warn("补齐最新视频列表失败: {}", e.getMessage());
+            }
+        }
+        snapshot = List.copyOf(videos);
+    }
+
+    private static Video copyOf(Video video) {
+        Video copy = new Video();
+        BeanUtils.copyProperties(video, copy);
+        return copy;
+    }
+}
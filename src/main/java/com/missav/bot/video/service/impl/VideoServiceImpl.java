@@ -1,14 +1,326 @@
 package com.missav.bot.video.service.impl;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.missav.bot.common.util.LabelUtils;
+import com.missav.bot.stats.service.IStatsService;
 import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.mapper.VideoLabelMapper;
 import com.missav.bot.video.mapper.VideoMapper;
+import com.missav.bot.video.mapper.VideoOutboxMapper;
+import com.missav.bot.video.outbox.VideoOutboxSignal;
+import com.missav.bot.video.search.VideoSearchIndex;
+import com.missav.bot.video.service.ILatestVideoService;
 import com.missav.bot.video.service.IVideoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 视频服务实现
+ * 按 ID / 番号的单条查询走本地缓存，经本服务的更新、删除会使缓存失效
  */
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class VideoServiceImpl extends ServiceImpl<VideoMapper, Video> implements IVideoService {
+
+    /**
+     * 关联表 name 列长度
+     */
+    private static final int LABEL_MAX_LENGTH = 100;
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final VideoLabelMapper videoLabelMapper;
+    private final VideoOutboxMapper videoOutboxMapper;
+    private final VideoOutboxSignal videoOutboxSignal;
+    private final VideoSearchIndex videoSearchIndex;
+    private final ILatestVideoService latestVideoService;
+    private final IStatsService statsService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${video.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${video.cache.expire-after-write:10m}")
+    private Duration cacheExpireAfterWrite;
+
+    /**
+     * 视频ID -> 视频
+     */
+    private LoadingCache<Long, Video> videoCache;
+
+    /**
+     * 番号 -> 视频ID（番号与 ID 的对应关系不会变化，视频内容统一由 videoCache 管理）
+     */
+    private LoadingCache<String, Long> codeCache;
+
+    @PostConstruct
+    public void initCache() {
+        videoCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheExpireAfterWrite)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Video load(Long id) {
+                        // 返回 null 时 Guava 抛出 InvalidCacheLoadException，不会缓存不存在的记录
+                        return baseMapper.selectById(id);
+                    }
+                });
+        codeCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheExpireAfterWrite)
+                .recordStats()
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Long load(String code) {
+                        Video video = baseMapper.selectByCode(code);
+                        if (video == null) {
+                            return null;
+                        }
+                        videoCache.put(video.getId(), video);
+                        return video.getId();
+                    }
+                });
+        GuavaCacheMetrics.monitor(meterRegistry, videoCache, "video.by-id");
+        GuavaCacheMetrics.monitor(meterRegistry, codeCache, "video.by-code");
+    }
+
+    @Override
+    public Video getById(Serializable id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return videoCache.getUnchecked(((Number) id).longValue());
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        } catch (UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    @Override
+    public Video getByCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        try {
+            Video video = getById(codeCache.getUnchecked(code));
+            if (video == null || !code.equals(video.getCode())) {
+                // 视频已删除或番号已修改，映射过期
+                codeCache.invalidate(code);
+                return baseMapper.selectByCode(code);
+            }
+            return video;
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        } catch (UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw e;
+        }
+    }
+
+    /**
+     * 在事务内调用时，提交后再清理一次：提交前其他线程可能已将旧数据重新载入缓存
+     */
+    @Override
+    public void evictCache(Long videoId) {
+        videoCache.invalidate(videoId);
+        afterCommit(() -> videoCache.invalidate(videoId));
+    }
+
+    /**
+     * 番号重复由调用方捕获跳过，不应让外层事务回滚
+     * 新视频事件与视频在同一事务内写入 video_outbox，提交后通知转发线程
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class, noRollbackFor = DuplicateKeyException.class)
+    public boolean save(Video video) {
+        boolean saved = super.save(video);
+        if (saved) {
+            insertLabels(video);
+            videoOutboxMapper.insertEvent(video.getId());
+            afterCommit(() -> {
+                videoOutboxSignal.nudge();
+                videoSearchIndex.add(video);
+                latestVideoService.onVideoSaved(video);
+                statsService.recordVideosSaved(1);
+            });
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean updateById(Video video) {
+        Video cached = videoCache.getIfPresent(video.getId());
+        boolean updated = super.updateById(video);
+        if (!updated) {
+            return false;
+        }
+
+        evictCache(video.getId());
+        // 番号可能被修改，清理新旧番号的映射；未缓存的旧番号由 getByCode 校验后清理
+        evictCode(video.getCode());
+        if (cached != null) {
+            evictCode(cached.getCode());
+        }
+
+        // 只同步本次实际更新的字段（null 字段不会被更新）
+        if (video.getActresses() != null) {
+            videoLabelMapper.deleteActresses(video.getId());
+            insertActresses(video.getId(), video.getActresses());
+        }
+        if (video.getTags() != null) {
+            videoLabelMapper.deleteTags(video.getId());
+            insertTags(video.getId(), video.getTags());
+        }
+        // 部分字段更新时以数据库中的完整记录重建索引
+        afterCommit(() -> {
+            Video latest = getById(video.getId());
+            videoSearchIndex.add(latest);
+            if (latest != null) {
+                latestVideoService.onVideoUpdated(latest);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean removeById(Serializable id) {
+        Long videoId = ((Number) id).longValue();
+        Video cached = videoCache.getIfPresent(videoId);
+        boolean removed = super.removeById(id);
+        if (removed) {
+            // 未缓存视频的番号映射由 getByCode 校验后清理
+            evictCache(videoId);
+            if (cached != null) {
+                evictCode(cached.getCode());
+            }
+            videoLabelMapper.deleteActresses(videoId);
+            videoLabelMapper.deleteTags(videoId);
+            afterCommit(() -> {
+                videoSearchIndex.remove(videoId);
+                latestVideoService.onVideoRemoved(videoId);
+                statsService.recordVideosRemoved(1);
+            });
+        }
+        return removed;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void syncLabels(Video video) {
+        videoLabelMapper.deleteActresses(video.getId());
+        videoLabelMapper.deleteTags(video.getId());
+        insertLabels(video);
+    }
+
+    @Override
+    public int backfillLabels() {
+        int total = 0;
+        long afterId = 0;
+        List<Video> batch;
+        do {
+            batch = videoLabelMapper.selectUnindexedVideos(afterId, BACKFILL_BATCH_SIZE);
+            for (Video video : batch) {
+                insertLabels(video);
+                afterId = video.getId();
+            }
+            total += batch.size();
+        } while (batch.size() == BACKFILL_BATCH_SIZE);
+        return total;
+    }
+
+    /**
+     * 启动后回填历史数据，已回填的视频会被跳过
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        try {
+            int count = backfillLabels();
+            if (count > 0) {
+                log.info("演员/标签关联表回填完成，共 {} 个视频", count);
+            }
+        } catch (Exception e) {
+            log.error("演员/标签关联表回填失败（请确认已执行 docs/sql/upgrade.sql）", e);
+        }
+    }
+
+    private void evictCode(String code) {
+        if (code != null) {
+            codeCache.invalidate(code);
+            afterCommit(() -> codeCache.invalidate(code));
+        }
+    }
+
+    /**
+     * 事务提交后再更新内存结构，避免回滚后残留；无事务时立即执行
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void insertLabels(Video video) {
+        insertActresses(video.getId(), video.getActresses());
+        insertTags(video.getId(), video.getTags());
+    }
+
+    private void insertActresses(Long videoId, String actresses) {
+        List<String> names = normalize(actresses);
+        if (!names.isEmpty()) {
+            videoLabelMapper.insertActresses(videoId, names);
+        }
+    }
+
+    private void insertTags(Long videoId, String tags) {
+        List<String> names = normalize(tags);
+        if (!names.isEmpty()) {
+            videoLabelMapper.insertTags(videoId, names);
+        }
+    }
+
+    private List<String> normalize(String labels) {
+        List<String> names = new ArrayList<>();
+        for (String label : LabelUtils.split(labels)) {
+            String name = label.length() > LABEL_MAX_LENGTH ? label.substring(0, LABEL_MAX_LENGTH) : label;
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
 }
@@ -0,0 +1,62 @@
+package com.missav.bot.video.sync;
+
+import com.missav.bot.stats.service.IStatsService;
+import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.mapper.VideoMapper;
+import com.missav.bot.video.search.VideoSearchIndex;
+import com.missav.bot.video.service.ILatestVideoService;
+import com.missav.bot.video.service.IVideoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 多节点时同步其他节点写入的视频
+ * 搜索索引、最新视频列表、统计计数和视频缓存都在各节点内存中，本节点只随自己的写入增量更新；
+ * 开启选主后每个同步周期重新读取最近新增或更新的视频，更新搜索索引并清理缓存，再从数据库重新加载最新视频列表和统计
+ * 每次多回看一段时间，晚提交的事务和节点间的时钟偏差都能覆盖，重复处理同一视频没有副作用
+ * 其他节点删除的视频不在同步范围内：搜索索引在本节点重启前仍会返回，缓存在 video.cache.expire-after-write 后过期
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cluster.leader-election.enabled", havingValue = "true")
+public class VideoViewSync {
+
+    private static final Duration LOOKBACK = Duration.ofMinutes(1);
+
+    private final VideoMapper videoMapper;
+    private final IVideoService videoService;
+    private final VideoSearchIndex videoSearchIndex;
+    private final ILatestVideoService latestVideoService;
+    private final IStatsService statsService;
+
+    /**
+     * 上次成功同步的时间，从创建时开始计算，启动时的全量加载之后写入的视频也会被同步
+     */
+    private LocalDateTime lastSyncAt = LocalDateTime.now();
+
+    @Scheduled(fixedDelayString = "${cluster.view-sync-interval:10000}", initialDelayString = "${cluster.view-sync-interval:10000}")
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<Video> changed = videoMapper.selectChangedSince(lastSyncAt.minus(LOOKBACK));
+            for (Video video : changed) {
+                videoService.evictCache(video.getId());
+                videoSearchIndex.add(video);
+            }
+            latestVideoService.refresh();
+            statsService.refresh();
+            // 失败时不推进，下次从上次成功的时间继续
+            lastSyncAt = now;
+        } catch (Exception e) {
+            log.warn("同步其他节点写入的视频失败: {}", e.getMessage());
+        }
+    }
+}
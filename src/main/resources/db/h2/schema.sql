@@ -0,0 +1,135 @@
+-- H2（MySQL 兼容模式）建表脚本，与根目录 init.sql 保持一致
+-- 修改 init.sql 时需同步修改本文件
+-- H2 的索引名在整个 schema 内唯一，因此索引名加上表名前缀
+
+-- 视频表
+CREATE TABLE IF NOT EXISTS videos (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    code VARCHAR(50) UNIQUE NOT NULL COMMENT '番号',
+    title VARCHAR(500) COMMENT '标题',
+    actresses VARCHAR(500) COMMENT '演员',
+    tags VARCHAR(500) COMMENT '标签',
+    duration INT COMMENT '时长(分钟)',
+    release_date DATETIME COMMENT '发布日期',
+    cover_url VARCHAR(500) COMMENT '封面URL',
+    preview_url VARCHAR(500) COMMENT '预览视频URL',
+    detail_url VARCHAR(500) COMMENT '详情页URL',
+    pushed BOOLEAN DEFAULT FALSE COMMENT '是否已推送',
+    created_id VARCHAR(50),
+    created_name VARCHAR(100),
+    created_time DATETIME,
+    updated_id VARCHAR(50),
+    updated_name VARCHAR(100),
+    updated_time DATETIME,
+    remark VARCHAR(500),
+    INDEX videos_idx_code (code),
+    INDEX videos_idx_pushed (pushed),
+    INDEX videos_idx_created_time (created_time),
+    INDEX videos_idx_updated_time (updated_time)
+) COMMENT='视频表';
+
+-- 订阅表
+CREATE TABLE IF NOT EXISTS subscriptions (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    chat_id BIGINT NOT NULL COMMENT 'Telegram聊天ID',
+    chat_type VARCHAR(20) COMMENT '聊天类型',
+    type VARCHAR(20) NOT NULL COMMENT '订阅类型:ALL/ACTRESS/TAG',
+    keyword VARCHAR(100) COMMENT '关键词',
+    enabled BOOLEAN DEFAULT TRUE COMMENT '是否启用',
+    created_id VARCHAR(50),
+    created_name VARCHAR(100),
+    created_time DATETIME,
+    updated_id VARCHAR(50),
+    updated_name VARCHAR(100),
+    updated_time DATETIME,
+    remark VARCHAR(500),
+    INDEX subscriptions_idx_chat_id (chat_id),
+    INDEX subscriptions_idx_type (type)
+) COMMENT='订阅表';
+
+-- 推送记录表
+CREATE TABLE IF NOT EXISTS push_records (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    chat_id BIGINT NOT NULL COMMENT '聊天ID',
+    status VARCHAR(20) NOT NULL COMMENT '状态:SUCCESS/FAILED',
+    fail_reason VARCHAR(500) COMMENT '失败原因',
+    pushed_at DATETIME COMMENT '推送时间',
+    message_id INT COMMENT '消息ID',
+    attempts INT NOT NULL DEFAULT 1 COMMENT '推送尝试次数',
+    created_id VARCHAR(50),
+    created_name VARCHAR(100),
+    created_time DATETIME,
+    updated_id VARCHAR(50),
+    updated_name VARCHAR(100),
+    updated_time DATETIME,
+    remark VARCHAR(500),
+    UNIQUE KEY push_records_uk_video_chat (video_id, chat_id),
+    INDEX push_records_idx_video_status_chat (video_id, status, chat_id),
+    INDEX push_records_idx_chat_id (chat_id),
+    INDEX push_records_idx_pushed_at (pushed_at)
+) COMMENT='推送记录表';
+
+-- 视频演员关联表
+CREATE TABLE IF NOT EXISTS video_actress (
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    name VARCHAR(100) NOT NULL COMMENT '演员名',
+    PRIMARY KEY (video_id, name),
+    INDEX video_actress_idx_name (name, video_id)
+) COMMENT='视频演员关联表';
+
+-- 视频标签关联表
+CREATE TABLE IF NOT EXISTS video_tag (
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    name VARCHAR(100) NOT NULL COMMENT '标签名',
+    PRIMARY KEY (video_id, name),
+    INDEX video_tag_idx_name (name, video_id)
+) COMMENT='视频标签关联表';
+
+-- 小时统计表
+CREATE TABLE IF NOT EXISTS stats_hourly (
+    hour_start DATETIME PRIMARY KEY COMMENT '小时起始时间',
+    new_videos BIGINT NOT NULL DEFAULT 0 COMMENT '新增视频数',
+    push_success BIGINT NOT NULL DEFAULT 0 COMMENT '推送成功数',
+    push_failed BIGINT NOT NULL DEFAULT 0 COMMENT '推送失败数',
+    crawl_runs BIGINT NOT NULL DEFAULT 0 COMMENT '定时抓取次数',
+    crawl_duration_ms BIGINT NOT NULL DEFAULT 0 COMMENT '定时抓取总耗时(毫秒)',
+    updated_time DATETIME
+) COMMENT='小时统计表';
+
+-- 租约表（主节点选举、推送分片归属）
+CREATE TABLE IF NOT EXISTS leader_lease (
+    name VARCHAR(191) PRIMARY KEY COMMENT '租约名称（crawler / push-node:节点ID / push-shard:分片）',
+    owner VARCHAR(128) COMMENT '持有者节点ID',
+    fencing_token BIGINT NOT NULL DEFAULT 0 COMMENT '换主时递增的令牌',
+    expires_at DATETIME COMMENT '租约到期时间',
+    renewed_at DATETIME COMMENT '最近续约时间'
+) COMMENT='租约表';
+
+-- 推送任务表
+CREATE TABLE IF NOT EXISTS push_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    chat_id BIGINT NOT NULL COMMENT '聊天ID',
+    shard INT NOT NULL COMMENT '按 chat_id 哈希的分片',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已领取次数',
+    available_at DATETIME NOT NULL COMMENT '可领取时间',
+    claimed_by VARCHAR(128) COMMENT '领取者',
+    claim_id VARCHAR(36) COMMENT '领取ID',
+    created_time DATETIME,
+    UNIQUE KEY push_jobs_uk_video_chat (video_id, chat_id),
+    INDEX push_jobs_idx_shard_available (shard, available_at),
+    INDEX push_jobs_idx_chat_available (chat_id, available_at)
+) COMMENT='推送任务表';
+
+-- 新视频事件表
+CREATE TABLE IF NOT EXISTS video_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    video_id BIGINT NOT NULL COMMENT '视频ID',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已转发次数',
+    available_at DATETIME NOT NULL COMMENT '可转发时间',
+    parked_time DATETIME COMMENT '搁置时间（超过最大转发次数）',
+    created_time DATETIME,
+    INDEX video_outbox_idx_video_id (video_id),
+    INDEX video_outbox_idx_available_at (available_at)
+) COMMENT='新视频事件表';
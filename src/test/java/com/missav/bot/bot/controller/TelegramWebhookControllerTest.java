@@ -0,0 +1,90 @@
+package com.missav.bot.bot.controller;
+
+import com.missav.bot.bot.MissavBot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TelegramWebhookControllerTest {
+
+    private static final String UPDATE_JSON = """
+            {"update_id": 1001,
+             "message": {"message_id": 1, "date": 1700000000,
+                         "chat": {"id": 123456, "type": "private"},
+                         "text": "/help"}}
+            """;
+
+    private MissavBot missavBot;
+    private ThreadPoolTaskExecutor executor;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        missavBot = mock(MissavBot.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+
+        TelegramWebhookController controller = new TelegramWebhookController(missavBot, executor);
+        ReflectionTestUtils.setField(controller, "secretToken", "s3cret");
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("telegram.webhook.path", "/telegram/webhook")
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testUpdateDispatchedToBot() throws Exception {
+        mockMvc.perform(post("/telegram/webhook")
+                        .header(TelegramWebhookController.SECRET_HEADER, "s3cret")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE_JSON))
+                .andExpect(status().isOk());
+
+        verify(missavBot, timeout(2000)).onUpdateReceived(any(Update.class));
+    }
+
+    @Test
+    void testInvalidSecretRejected() throws Exception {
+        mockMvc.perform(post("/telegram/webhook")
+                        .header(TelegramWebhookController.SECRET_HEADER, "wrong")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE_JSON))
+                .andExpect(status().isUnauthorized());
+
+        verify(missavBot, after(200).never()).onUpdateReceived(any(Update.class));
+    }
+
+    @Test
+    void testRequestRejectedWithoutConfiguredSecret() throws Exception {
+        TelegramWebhookController controller = new TelegramWebhookController(missavBot, executor);
+        ReflectionTestUtils.setField(controller, "secretToken", "");
+        MockMvc unconfigured = MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("telegram.webhook.path", "/telegram/webhook")
+                .build();
+
+        unconfigured.perform(post("/telegram/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(UPDATE_JSON))
+                .andExpect(status().isUnauthorized());
+
+        verify(missavBot, after(200).never()).onUpdateReceived(any(Update.class));
+    }
+}
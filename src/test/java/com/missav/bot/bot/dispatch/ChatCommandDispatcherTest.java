@@ -0,0 +1,91 @@
+package com.missav.bot.bot.dispatch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatCommandDispatcherTest {
+
+    private ChatCommandDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new ChatCommandDispatcher(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "maxPendingPerChat", 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void testCommandsInSameChatRunInOrder() throws InterruptedException {
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            int index = i;
+            assertTrue(dispatcher.dispatch(1L, () -> {
+                executed.add(index);
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, executed.get(i));
+        }
+    }
+
+    @Test
+    void testSlowChatDoesNotBlockOtherChats() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherDone = new CountDownLatch(1);
+
+        dispatcher.dispatch(1L, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatcher.dispatch(2L, otherDone::countDown);
+
+        assertTrue(otherDone.await(2, TimeUnit.SECONDS), "其他聊天的命令不应被慢命令阻塞");
+        release.countDown();
+    }
+
+    @Test
+    void testRejectWhenChatQueueFull() throws InterruptedException {
+        ReflectionTestUtils.setField(dispatcher, "maxPendingPerChat", 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        dispatcher.dispatch(1L, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+
+        assertTrue(dispatcher.dispatch(1L, () -> { }));
+        assertTrue(dispatcher.dispatch(1L, () -> { }));
+        assertFalse(dispatcher.dispatch(1L, () -> { }));
+        assertEquals(1, dispatcher.getRejectedCount());
+        release.countDown();
+    }
+}
@@ -0,0 +1,110 @@
+package com.missav.bot.cluster.mapper;
+
+import com.missav.bot.cluster.entity.LeaderLease;
+import com.missav.bot.common.H2MapperTestConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 主节点租约 SQL 测试（H2）
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(classes = H2MapperTestConfig.class)
+class LeaderLeaseMapperTest {
+
+    private static final String NAME = "crawler-test";
+
+    @Autowired
+    private LeaderLeaseMapper leaderLeaseMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        leaderLeaseMapper.deleteById(NAME);
+        leaderLeaseMapper.insertIfAbsent(NAME);
+    }
+
+    @Test
+    void testAcquireAndRenewKeepToken() {
+        assertEquals(1, leaderLeaseMapper.acquire(NAME, "node-a", 30));
+        assertEquals(1L, token());
+
+        // 续约不换主，token 不变
+        assertEquals(1, leaderLeaseMapper.acquire(NAME, "node-a", 30));
+        assertEquals(1L, token());
+        assertTrue(leaderLeaseMapper.isHeld(NAME, "node-a", 1));
+        assertTrue(leaderLeaseMapper.selectRemainingSeconds(NAME) > 0);
+
+        // 重复初始化不影响已有租约
+        assertEquals(0, leaderLeaseMapper.insertIfAbsent(NAME));
+        assertEquals("node-a", leaderLeaseMapper.selectById(NAME).getOwner());
+    }
+
+    @Test
+    void testCannotTakeOverUnexpiredLease() {
+        leaderLeaseMapper.acquire(NAME, "node-a", 30);
+
+        assertEquals(0, leaderLeaseMapper.acquire(NAME, "node-b", 30));
+        LeaderLease lease = leaderLeaseMapper.selectById(NAME);
+        assertEquals("node-a", lease.getOwner());
+        assertEquals(1L, lease.getFencingToken());
+        assertFalse(leaderLeaseMapper.isHeld(NAME, "node-b", 1));
+    }
+
+    @Test
+    void testTakeOverExpiredLeaseIncrementsToken() {
+        leaderLeaseMapper.acquire(NAME, "node-a", 0);
+
+        assertEquals(1, leaderLeaseMapper.acquire(NAME, "node-b", 30));
+        assertEquals("node-b", leaderLeaseMapper.selectById(NAME).getOwner());
+        assertEquals(2L, token());
+        // 旧主节点凭旧 token 不再有效，也不能抢回未过期的租约
+        assertFalse(leaderLeaseMapper.isHeld(NAME, "node-a", 1));
+        assertEquals(0, leaderLeaseMapper.acquire(NAME, "node-a", 30));
+        assertEquals(2L, token());
+    }
+
+    @Test
+    void testReleasedLeaseCanBeTakenOver() {
+        leaderLeaseMapper.acquire(NAME, "node-a", 30);
+        assertEquals(1, leaderLeaseMapper.release(NAME, "node-a"));
+        // 非持有者让出无效
+        assertEquals(0, leaderLeaseMapper.release(NAME, "node-b"));
+
+        assertEquals(1, leaderLeaseMapper.acquire(NAME, "node-b", 30));
+        assertEquals(2L, token());
+    }
+
+    @Test
+    void testFencingLockBlocksTakeoverUntilCommit() throws Exception {
+        leaderLeaseMapper.acquire(NAME, "node-a", 0);
+
+        CompletableFuture<Integer> takeover = transactionTemplate.execute(status -> {
+            assertEquals(1L, leaderLeaseMapper.selectFencingTokenForUpdate(NAME));
+            CompletableFuture<Integer> future = CompletableFuture.supplyAsync(
+                    () -> leaderLeaseMapper.acquire(NAME, "node-b", 30));
+            // 租约已过期，但行锁未释放前新节点无法接管
+            assertThrows(TimeoutException.class, () -> future.get(300, TimeUnit.MILLISECONDS));
+            return future;
+        });
+
+        assertEquals(1, takeover.get(5, TimeUnit.SECONDS));
+        assertEquals(2L, token());
+    }
+
+    private Long token() {
+        return leaderLeaseMapper.selectById(NAME).getFencingToken();
+    }
+}
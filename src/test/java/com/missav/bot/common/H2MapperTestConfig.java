@@ -0,0 +1,29 @@
+package com.missav.bot.common;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import com.missav.bot.common.config.MyMetaObjectHandler;
+import com.missav.bot.common.config.MybatisConfig;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Mapper 测试的最小上下文：H2（MySQL 兼容模式，db/h2/schema.sql）+ MyBatis-Plus，不启动 Bot 和定时任务
+ * 用法: @SpringBootTest(classes = H2MapperTestConfig.class) + @ActiveProfiles("h2")
+ * 不加 @Configuration，避免被应用的组件扫描带进其他测试的上下文
+ */
+@AutoConfigurationPackage(basePackages = "com.missav.bot")
+@ImportAutoConfiguration({
+    DataSourceAutoConfiguration.class,
+    DataSourceTransactionManagerAutoConfiguration.class,
+    TransactionAutoConfiguration.class,
+    SqlInitializationAutoConfiguration.class,
+    MybatisPlusAutoConfiguration.class
+})
+@Import({MybatisConfig.class, MyMetaObjectHandler.class})
+public class H2MapperTestConfig {
+}
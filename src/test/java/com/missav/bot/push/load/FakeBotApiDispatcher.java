@@ -0,0 +1,163 @@
+package com.missav.bot.push.load;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 模拟 Telegram Bot API 的 MockWebServer 分发器
+ * 每个请求固定延迟；发送类请求按比例返回 429（带 retry_after），被拉黑的聊天返回 403
+ * 记录每次成功送达距本轮开始的耗时
+ */
+class FakeBotApiDispatcher extends Dispatcher {
+
+    /**
+     * chat_id 可能在 JSON 请求体或 multipart 表单中
+     */
+    private static final Pattern JSON_CHAT_ID = Pattern.compile("\"chat_id\"\\s*:\\s*\"?(-?\\d+)");
+    private static final Pattern FORM_CHAT_ID = Pattern.compile("name=\"chat_id\"[^\\n]*\\r?\\n(?:[^\\n]*\\r?\\n)*?\\r?\\n(-?\\d+)");
+
+    private final long latencyMillis;
+    private final double rateLimitRatio;
+    private final int retryAfterSeconds;
+    private final int blockedModulo;
+    private final Random random = new Random(42);
+
+    private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong forbidden = new AtomicLong();
+    private final AtomicInteger messageId = new AtomicInteger();
+    private final List<Long> deliverNanos = Collections.synchronizedList(new ArrayList<>());
+    private volatile long startNanos = System.nanoTime();
+
+    FakeBotApiDispatcher(long latencyMillis, double rateLimitRatio, int retryAfterSeconds, int blockedModulo) {
+        this.latencyMillis = latencyMillis;
+        this.rateLimitRatio = rateLimitRatio;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.blockedModulo = blockedModulo;
+    }
+
+    /**
+     * 开始一轮计时并清空统计
+     */
+    void start() {
+        calls.clear();
+        delivered.set(0);
+        rateLimited.set(0);
+        forbidden.set(0);
+        deliverNanos.clear();
+        startNanos = System.nanoTime();
+    }
+
+    boolean isBlocked(long chatId) {
+        return blockedModulo > 0 && chatId % blockedModulo == 0;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        String path = request.getPath() == null ? "" : request.getPath();
+        String method = path.substring(path.lastIndexOf('/') + 1);
+        calls.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+
+        if (!method.startsWith("send")) {
+            return ok("true");
+        }
+
+        long chatId = chatId(request.getBody().readUtf8());
+        if (isBlocked(chatId)) {
+            forbidden.incrementAndGet();
+            return error(403, "Forbidden: bot was blocked by the user", null);
+        }
+        synchronized (random) {
+            if (random.nextDouble() < rateLimitRatio) {
+                rateLimited.incrementAndGet();
+                return error(429, "Too Many Requests: retry after " + retryAfterSeconds,
+                        "{\"retry_after\":" + retryAfterSeconds + "}");
+            }
+        }
+
+        delivered.incrementAndGet();
+        deliverNanos.add(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latencyMillis) - startNanos);
+        String message = message(chatId);
+        return ok("sendMediaGroup".equals(method) ? "[" + message + "]" : message);
+    }
+
+    long delivered() {
+        return delivered.get();
+    }
+
+    long rateLimited() {
+        return rateLimited.get();
+    }
+
+    long forbidden() {
+        return forbidden.get();
+    }
+
+    Map<String, AtomicLong> calls() {
+        return calls;
+    }
+
+    /**
+     * 送达耗时分位数（毫秒），从 start() 开始计
+     */
+    double percentileMillis(double percentile) {
+        List<Long> sorted;
+        synchronized (deliverNanos) {
+            sorted = new ArrayList<>(deliverNanos);
+        }
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private long chatId(String body) {
+        Matcher matcher = JSON_CHAT_ID.matcher(body);
+        if (matcher.find()) {
+            return Long.parseLong(matcher.group(1));
+        }
+        matcher = FORM_CHAT_ID.matcher(body);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private String message(long chatId) {
+        return "{\"message_id\":" + messageId.incrementAndGet()
+                + ",\"date\":" + Instant.now().getEpochSecond()
+                + ",\"chat\":{\"id\":" + chatId + ",\"type\":\"supergroup\"}}";
+    }
+
+    private MockResponse ok(String result) {
+        return response(200, "{\"ok\":true,\"result\":" + result + "}");
+    }
+
+    private MockResponse error(int code, String description, String parameters) {
+        String body = "{\"ok\":false,\"error_code\":" + code + ",\"description\":\"" + description + "\""
+                + (parameters != null ? ",\"parameters\":" + parameters : "") + "}";
+        return response(code, body);
+    }
+
+    private MockResponse response(int code, String body) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody(body)
+                .setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS);
+    }
+}
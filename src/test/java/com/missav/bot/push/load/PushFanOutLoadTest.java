@@ -0,0 +1,45 @@
+package com.missav.bot.push.load;
+
+import com.missav.bot.video.entity.Video;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 推送扇出压测（直接推送）：与抓取流水线推送阶段相同，pushVideos 按聊天并发发送
+ * 运行: mvn -Pload-test test -Dtest=PushFanOutLoadTest -Dload.subscriptions=10000 -Dload.videos=500
+ */
+class PushFanOutLoadTest extends PushLoadTestBase {
+
+    private static final FakeBotApiDispatcher DISPATCHER = newDispatcher();
+    private static final MockWebServer SERVER = new MockWebServer();
+
+    @DynamicPropertySource
+    static void telegramApi(DynamicPropertyRegistry registry) throws IOException {
+        startServer(SERVER, DISPATCHER, registry);
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        SERVER.shutdown();
+    }
+
+    @Test
+    void testPushVideosFanOut() {
+        List<Video> videos = prepare();
+
+        queryCounter.reset();
+        DISPATCHER.start();
+        long start = System.nanoTime();
+        pushAsLeader(videos);
+        double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        report("直接推送", DISPATCHER, elapsedMillis);
+        assertAllDelivered(DISPATCHER);
+    }
+}
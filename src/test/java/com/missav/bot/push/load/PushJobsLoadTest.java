@@ -0,0 +1,78 @@
+package com.missav.bot.push.load;
+
+import com.missav.bot.push.service.IPushJobService;
+import com.missav.bot.video.entity.Video;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送任务队列压测：pushVideos 只写入 push_jobs，由本节点的 PushJobWorker 领取发送
+ * 运行: mvn -Pload-test test -Dtest=PushJobsLoadTest -Dload.push-workers=4
+ * 重试不等待、最多两次，拉黑 Bot 的聊天很快放弃，不拖长压测
+ */
+@Slf4j
+@TestPropertySource(properties = {
+    // 与 PushFanOutLoadTest 的上下文同时存在，使用单独的内存库
+    "spring.datasource.url=jdbc:h2:mem:missav_bot_push_jobs;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1",
+    "push.jobs.enabled=true",
+    "push.jobs.workers=${load.push-workers:4}",
+    "push.jobs.poll-interval=50ms",
+    "push.jobs.retry-delay=0s",
+    "push.jobs.max-attempts=2"
+})
+class PushJobsLoadTest extends PushLoadTestBase {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final FakeBotApiDispatcher DISPATCHER = newDispatcher();
+    private static final MockWebServer SERVER = new MockWebServer();
+
+    @Autowired
+    private IPushJobService pushJobService;
+
+    @DynamicPropertySource
+    static void telegramApi(DynamicPropertyRegistry registry) throws IOException {
+        startServer(SERVER, DISPATCHER, registry);
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        SERVER.shutdown();
+    }
+
+    @Test
+    void testPushJobsFanOut() throws InterruptedException {
+        List<Video> videos = prepare();
+
+        queryCounter.reset();
+        DISPATCHER.start();
+        long start = System.nanoTime();
+        pushAsLeader(videos);
+        long queued = pushJobService.countPending();
+        double enqueueMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (pushJobService.countPending() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        report("推送任务队列", DISPATCHER, elapsedMillis);
+        log.info("  入队 {} 个任务, 耗时 {} ms", queued, Math.round(enqueueMillis));
+        assertTrue(queued > 0, "应有任务入队");
+        assertEquals(0, pushJobService.countPending(), "任务应在超时前全部处理完");
+        assertAllDelivered(DISPATCHER);
+    }
+}
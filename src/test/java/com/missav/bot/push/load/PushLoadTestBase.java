@@ -0,0 +1,271 @@
+package com.missav.bot.push.load;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.missav.bot.cluster.service.ILeaderElectionService;
+import com.missav.bot.crawler.service.ICrawlerService;
+import com.missav.bot.push.entity.PushRecord;
+import com.missav.bot.push.mapper.PushRecordMapper;
+import com.missav.bot.push.service.IPushService;
+import com.missav.bot.subscription.entity.Subscription;
+import com.missav.bot.subscription.entity.Subscription.SubscriptionType;
+import com.missav.bot.subscription.service.ISubscriptionService;
+import com.missav.bot.video.entity.Video;
+import com.missav.bot.video.service.IVideoService;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.mockwebserver.MockWebServer;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import javax.net.ServerSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送压测公共部分：在 H2 中造订阅和视频，按生产链路调用 pushVideos，真实发送打到 MockWebServer 模拟的 Bot API
+ * 可选参数: load.subscriptions / load.videos / load.latency-ms / load.rate-limit-ratio / load.retry-after /
+ * load.blocked-modulo / load.push-interval
+ */
+@Slf4j
+@Tag("load")
+@ActiveProfiles("h2")
+@SpringBootTest(properties = {
+    "crawler.enabled=false",
+    "crawler.stub.enabled=false",
+    "telegram.stub.enabled=false",
+    "telegram.bot.default-chat-id=0",
+    "telegram.push.interval=${load.push-interval:0ms}",
+    "logging.level.com.missav.bot.push.service=WARN",
+    "logging.level.com.missav.bot.push.worker=WARN",
+    "logging.level.com.missav.bot.telegram=ERROR"
+})
+@Import(PushLoadTestBase.QueryCounterConfig.class)
+abstract class PushLoadTestBase {
+
+    static final int SUBSCRIPTIONS = Integer.getInteger("load.subscriptions", 300);
+    static final int VIDEOS = Integer.getInteger("load.videos", 50);
+    private static final long BASE_CHAT_ID = 100_000L;
+
+    private static final List<String> ACTRESSES = IntStream.rangeClosed(1, 20)
+            .mapToObj(i -> String.format("演员%02d", i)).toList();
+    private static final List<String> TAGS = IntStream.rangeClosed(1, 10)
+            .mapToObj(i -> String.format("标签%02d", i)).toList();
+
+    @Autowired
+    protected IPushService pushService;
+
+    @Autowired
+    private ISubscriptionService subscriptionService;
+
+    @Autowired
+    private IVideoService videoService;
+
+    @Autowired
+    private ICrawlerService crawlerService;
+
+    @Autowired
+    private ILeaderElectionService leaderElectionService;
+
+    @Autowired
+    private PushRecordMapper pushRecordMapper;
+
+    @Autowired
+    protected QueryCounter queryCounter;
+
+    static FakeBotApiDispatcher newDispatcher() {
+        return new FakeBotApiDispatcher(
+                Long.getLong("load.latency-ms", 5),
+                Double.parseDouble(System.getProperty("load.rate-limit-ratio", "0.01")),
+                Integer.getInteger("load.retry-after", 1),
+                Integer.getInteger("load.blocked-modulo", 97));
+    }
+
+    /**
+     * 每个测试类各自启动一个假 Bot API，并把 Bot 的 base-url 指向它
+     */
+    static void startServer(MockWebServer server, FakeBotApiDispatcher dispatcher, DynamicPropertyRegistry registry)
+            throws IOException {
+        server.setDispatcher(dispatcher);
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.start();
+        registry.add("telegram.bot.base-url", () -> server.url("/bot").toString());
+    }
+
+    /**
+     * 写入订阅和视频
+     * @return 已入库的视频
+     */
+    List<Video> prepare() {
+        Random random = new Random(7);
+        subscriptionService.saveBatch(subscriptions(random), 1000);
+        List<Video> videos = new ArrayList<>(VIDEOS);
+        for (int i = 1; i <= VIDEOS; i++) {
+            Video video = video(i, random);
+            videoService.save(video);
+            videos.add(video);
+        }
+        return videos;
+    }
+
+    /**
+     * 与 CrawlPipeline 推送阶段相同：以本节点的任期 token 推送一批新入库的视频
+     */
+    void pushAsLeader(List<Video> videos) {
+        pushService.pushVideos(videos, leaderElectionService.getFencingToken());
+    }
+
+    void report(String name, FakeBotApiDispatcher dispatcher, double elapsedMillis) {
+        long queries = queryCounter.get();
+        log.info("{}压测: 订阅 {}, 视频 {}, 耗时 {} ms", name, SUBSCRIPTIONS, VIDEOS, Math.round(elapsedMillis));
+        log.info("  送达 {} 次, {} 次/秒, 送达耗时 p50={} ms, p99={} ms",
+                dispatcher.delivered(), Math.round(dispatcher.delivered() * 1000 / elapsedMillis),
+                Math.round(dispatcher.percentileMillis(0.50)), Math.round(dispatcher.percentileMillis(0.99)));
+        log.info("  限流 429: {} 次, 拒绝 403: {} 次, 各方法调用: {}",
+                dispatcher.rateLimited(), dispatcher.forbidden(), dispatcher.calls());
+        log.info("  SQL 语句 {} 条, 每视频 {} 条", queries, String.format("%.1f", (double) queries / VIDEOS));
+    }
+
+    void assertAllDelivered(FakeBotApiDispatcher dispatcher) {
+        assertTrue(dispatcher.delivered() > 0, "应有推送送达");
+        assertTrue(crawlerService.getUnpushedVideos().isEmpty(), "所有视频应标记为已推送");
+
+        // 429 应按 retry_after 重试成功，失败记录只能来自拉黑 Bot 的聊天
+        List<PushRecord> failed = pushRecordMapper.selectList(new LambdaQueryWrapper<PushRecord>()
+                .eq(PushRecord::getStatus, PushRecord.PushStatus.FAILED));
+        assertTrue(failed.stream().allMatch(r -> dispatcher.isBlocked(r.getChatId())),
+                "非拉黑聊天不应推送失败");
+    }
+
+    /**
+     * 每个聊天一条订阅：5% 全部，60% 演员，35% 标签
+     */
+    private List<Subscription> subscriptions(Random random) {
+        List<Subscription> subscriptions = new ArrayList<>(SUBSCRIPTIONS);
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            int bucket = i % 20;
+            SubscriptionType type = bucket == 0 ? SubscriptionType.ALL
+                    : bucket <= 12 ? SubscriptionType.ACTRESS : SubscriptionType.TAG;
+            String keyword = switch (type) {
+                case ALL -> null;
+                case ACTRESS -> ACTRESSES.get(random.nextInt(ACTRESSES.size()));
+                case TAG -> TAGS.get(random.nextInt(TAGS.size()));
+            };
+            subscriptions.add(Subscription.builder()
+                    .chatId(BASE_CHAT_ID + i)
+                    .chatType("supergroup")
+                    .type(type)
+                    .keyword(keyword)
+                    .enabled(true)
+                    .build());
+        }
+        return subscriptions;
+    }
+
+    private Video video(int index, Random random) {
+        String code = String.format("LOAD-%05d", index);
+        return Video.builder()
+                .code(code)
+                .title("压测视频 " + code)
+                .actresses(pick(ACTRESSES, 1 + random.nextInt(2), random))
+                .tags(pick(TAGS, 2 + random.nextInt(2), random))
+                .duration(120)
+                .coverUrl("https://example.com/cover/" + code + ".jpg")
+                .detailUrl("https://example.com/" + code.toLowerCase())
+                .pushed(false)
+                .build();
+    }
+
+    private static String pick(List<String> labels, int count, Random random) {
+        return random.ints(0, labels.size())
+                .distinct()
+                .limit(count)
+                .mapToObj(labels::get)
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * 统计实际发往数据库的 SQL 语句数
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    static class QueryCounter implements Interceptor {
+
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            count.incrementAndGet();
+            return invocation.proceed();
+        }
+
+        void reset() {
+            count.set(0);
+        }
+
+        long get() {
+            return count.get();
+        }
+    }
+
+    /**
+     * 接受的连接关闭 Nagle 算法，避免与客户端延迟 ACK 叠加出每个请求约 40ms 的假延迟
+     */
+    static class NoDelayServerSocketFactory extends ServerSocketFactory {
+
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new ServerSocket() {
+                @Override
+                public Socket accept() throws IOException {
+                    Socket socket = super.accept();
+                    socket.setTcpNoDelay(true);
+                    return socket;
+                }
+            };
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @TestConfiguration
+    static class QueryCounterConfig {
+
+        @Bean
+        QueryCounter queryCounter() {
+            return new QueryCounter();
+        }
+    }
+}
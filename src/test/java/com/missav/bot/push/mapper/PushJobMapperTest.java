@@ -0,0 +1,158 @@
+package com.missav.bot.push.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.missav.bot.cluster.mapper.LeaderLeaseMapper;
+import com.missav.bot.common.H2MapperTestConfig;
+import com.missav.bot.push.entity.PushJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送任务领取 / 确认 / 放回 / 超时 SQL 测试（H2）
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(classes = H2MapperTestConfig.class)
+class PushJobMapperTest {
+
+    private static final int SHARD = 1;
+    private static final String OWNER = "node-a";
+
+    @Autowired
+    private PushJobMapper pushJobMapper;
+
+    @Autowired
+    private LeaderLeaseMapper leaderLeaseMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        pushJobMapper.delete(new QueryWrapper<>());
+        String lease = PushJobMapper.SHARD_LEASE_PREFIX + SHARD;
+        leaderLeaseMapper.deleteById(lease);
+        leaderLeaseMapper.insertIfAbsent(lease);
+        leaderLeaseMapper.acquire(lease, OWNER, 30);
+
+        assertEquals(3, pushJobMapper.insertIgnoreBatch(List.of(job(1L, 100L), job(2L, 100L), job(1L, 200L))));
+    }
+
+    @Test
+    void testEnqueueIgnoresDuplicates() {
+        assertEquals(1, pushJobMapper.insertIgnoreBatch(List.of(job(1L, 100L), job(3L, 100L))));
+        assertEquals(4, pushJobMapper.countAll());
+    }
+
+    @Test
+    void testClaimTakesOneChatOfOwnedShard() {
+        Long chatId = pushJobMapper.selectNextChatId(SHARD);
+        assertEquals(100L, chatId);
+
+        // 不持有分片的节点领取不到
+        assertTrue(claim(chatId, "node-b", 10).isEmpty());
+
+        List<PushJob> jobs = claim(chatId, OWNER, 10);
+        assertEquals(2, jobs.size());
+        assertTrue(jobs.stream().allMatch(job -> job.getChatId() == 100L));
+        assertEquals(1, jobs.get(0).getAttempts());
+
+        // 已领取的任务在可见性超时内不可再领取，下一个聊天可以
+        assertTrue(claim(chatId, OWNER, 10).isEmpty());
+        assertEquals(200L, pushJobMapper.selectNextChatId(SHARD));
+    }
+
+    @Test
+    void testClaimRespectsLimit() {
+        assertEquals(1, claim(100L, OWNER, 1).size());
+        assertEquals(1, claim(100L, OWNER, 1).size());
+        assertTrue(claim(100L, OWNER, 1).isEmpty());
+    }
+
+    @Test
+    void testExpiredShardLeaseBlocksClaim() {
+        leaderLeaseMapper.release(PushJobMapper.SHARD_LEASE_PREFIX + SHARD, OWNER);
+        assertTrue(claim(100L, OWNER, 10).isEmpty());
+    }
+
+    @Test
+    void testAckOnlyByCurrentClaim() {
+        PushJob job = claim(100L, OWNER, 1).get(0);
+
+        assertEquals(0, pushJobMapper.deleteClaimed(job.getId(), "other-claim"));
+        assertEquals(1, pushJobMapper.deleteClaimed(job.getId(), job.getClaimId()));
+        assertNull(pushJobMapper.selectById(job.getId()));
+    }
+
+    @Test
+    void testReleaseMakesJobClaimableAfterDelay() {
+        PushJob job = claim(100L, OWNER, 1).get(0);
+        assertEquals(0, pushJobMapper.release(job.getId(), "other-claim", 0));
+
+        assertEquals(1, pushJobMapper.release(job.getId(), job.getClaimId(), 60));
+        PushJob released = pushJobMapper.selectById(job.getId());
+        assertNull(released.getClaimId());
+        assertNull(released.getClaimedBy());
+        // 延迟未到，只能领到同一聊天的另一个任务
+        List<PushJob> next = claim(100L, OWNER, 10);
+        assertEquals(1, next.size());
+        assertNotEquals(job.getId(), next.get(0).getId());
+
+        assertEquals(1, pushJobMapper.release(next.get(0).getId(), next.get(0).getClaimId(), 0));
+        assertEquals(next.get(0).getId(), claim(100L, OWNER, 10).get(0).getId());
+    }
+
+    @Test
+    void testExpiredClaimIsReclaimedAndOldClaimLosesIt() {
+        List<PushJob> expired = claim(100L, OWNER, 2, 0);
+        PushJob first = expired.get(0);
+
+        // 可见性超时已过，可以被重新领取，旧领取无法续期或确认
+        List<PushJob> reclaimed = claim(100L, OWNER, 2);
+        assertEquals(2, reclaimed.size());
+        PushJob second = reclaimed.stream().filter(job -> job.getId().equals(first.getId())).findFirst().orElseThrow();
+        assertEquals(2, second.getAttempts());
+        assertEquals(0, pushJobMapper.extendClaim(first.getClaimId(), 60));
+        assertEquals(0, pushJobMapper.deleteClaimed(first.getId(), first.getClaimId()));
+        assertEquals(1, pushJobMapper.deleteClaimed(second.getId(), second.getClaimId()));
+    }
+
+    @Test
+    void testExtendKeepsClaimInvisible() {
+        PushJob job = claim(100L, OWNER, 2, 0).get(0);
+
+        assertEquals(2, pushJobMapper.extendClaim(job.getClaimId(), 60));
+        assertTrue(claim(100L, OWNER, 10).isEmpty());
+    }
+
+    private List<PushJob> claim(Long chatId, String owner, int limit) {
+        return claim(chatId, owner, limit, 300);
+    }
+
+    /**
+     * 与 PushJobServiceImpl.claim 相同：同一事务内锁定并标记
+     */
+    private List<PushJob> claim(Long chatId, String owner, int limit, long visibilitySeconds) {
+        return transactionTemplate.execute(status -> {
+            List<PushJob> jobs = pushJobMapper.selectClaimableForUpdate(SHARD, chatId, owner, limit);
+            if (jobs.isEmpty()) {
+                return jobs;
+            }
+            String claimId = "claim-" + System.nanoTime();
+            pushJobMapper.markClaimed(jobs.stream().map(PushJob::getId).toList(), owner + "#0", claimId,
+                    visibilitySeconds);
+            return jobs.stream().map(job -> pushJobMapper.selectById(job.getId())).toList();
+        });
+    }
+
+    private static PushJob job(Long videoId, Long chatId) {
+        return PushJob.builder().videoId(videoId).chatId(chatId).shard(SHARD).build();
+    }
+}
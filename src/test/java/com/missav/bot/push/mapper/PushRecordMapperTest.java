@@ -0,0 +1,81 @@
+package com.missav.bot.push.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.missav.bot.common.H2MapperTestConfig;
+import com.missav.bot.push.entity.PushRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分区模式下先更新后插入写入推送结果 SQL 测试（H2）
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(classes = H2MapperTestConfig.class)
+class PushRecordMapperTest {
+
+    @Autowired
+    private PushRecordMapper pushRecordMapper;
+
+    @BeforeEach
+    void setUp() {
+        pushRecordMapper.delete(new QueryWrapper<>());
+    }
+
+    @Test
+    void testUpdateMissesBeforeFirstInsert() {
+        PushRecord failed = record(PushRecord.PushStatus.FAILED);
+        assertEquals(0, pushRecordMapper.updateResult(failed));
+        assertEquals(1, pushRecordMapper.insertResult(failed));
+
+        PushRecord saved = single();
+        assertEquals(PushRecord.PushStatus.FAILED, saved.getStatus());
+        assertEquals(1, saved.getAttempts());
+    }
+
+    @Test
+    void testRetryUpdatesSameRow() {
+        pushRecordMapper.insertResult(record(PushRecord.PushStatus.FAILED));
+
+        assertEquals(1, pushRecordMapper.updateResult(record(PushRecord.PushStatus.SUCCESS)));
+        PushRecord saved = single();
+        assertEquals(PushRecord.PushStatus.SUCCESS, saved.getStatus());
+        assertNull(saved.getFailReason());
+        assertEquals(2, saved.getAttempts());
+    }
+
+    @Test
+    void testFailureDoesNotOverwriteSuccess() {
+        pushRecordMapper.insertResult(record(PushRecord.PushStatus.SUCCESS));
+
+        assertEquals(1, pushRecordMapper.updateResult(record(PushRecord.PushStatus.FAILED)));
+        PushRecord saved = single();
+        assertEquals(PushRecord.PushStatus.SUCCESS, saved.getStatus());
+        assertNull(saved.getFailReason());
+        assertEquals(2, saved.getAttempts());
+    }
+
+    private PushRecord single() {
+        List<PushRecord> records = pushRecordMapper.selectByVideoId(1L);
+        assertEquals(1, records.size());
+        return records.get(0);
+    }
+
+    private static PushRecord record(PushRecord.PushStatus status) {
+        boolean success = status == PushRecord.PushStatus.SUCCESS;
+        return PushRecord.builder()
+                .videoId(1L)
+                .chatId(100L)
+                .status(status)
+                .failReason(success ? null : "推送失败")
+                .pushedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.missav.bot.push.worker;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.missav.bot.cluster.entity.LeaderLease;
+import com.missav.bot.cluster.mapper.LeaderLeaseMapper;
+import com.missav.bot.common.H2MapperTestConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 推送分片在节点间的分配与接管（H2）
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(classes = H2MapperTestConfig.class)
+class PushShardOwnershipTest {
+
+    private static final int SHARDS = 4;
+
+    @Autowired
+    private LeaderLeaseMapper leaderLeaseMapper;
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        leaderLeaseMapper.delete(new QueryWrapper<LeaderLease>().likeRight("name", "push-"));
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(2);
+        scheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testShardsAreSplitAndTakenOver() throws InterruptedException {
+        PushShardOwnership nodeA = ownership();
+        PushShardOwnership nodeB = ownership();
+
+        nodeA.start("node-a", SHARDS);
+        assertEquals(SHARDS, nodeA.getOwnedShards().size());
+
+        // 新节点加入后，node-a 在心跳时让出多余的分片
+        nodeB.start("node-b", SHARDS);
+        awaitTrue(() -> nodeA.getOwnedShards().size() == 2 && nodeB.getOwnedShards().size() == 2);
+        Set<Integer> shardsOfA = new HashSet<>(nodeA.getOwnedShards());
+        shardsOfA.retainAll(nodeB.getOwnedShards());
+        assertTrue(shardsOfA.isEmpty());
+
+        // 正在发送的分片不会被让出
+        int busyShard = nodeB.getOwnedShards().iterator().next();
+        assertTrue(nodeB.begin(busyShard));
+        assertFalse(nodeA.begin(busyShard));
+        nodeB.end(busyShard);
+
+        nodeA.stop();
+        awaitTrue(() -> nodeB.getOwnedShards().size() == SHARDS);
+        nodeB.stop();
+        assertEquals(SHARDS, leaderLeaseMapper.selectAvailableNames("push-shard:").size());
+    }
+
+    private PushShardOwnership ownership() {
+        PushShardOwnership ownership = new PushShardOwnership(leaderLeaseMapper, scheduler);
+        ReflectionTestUtils.setField(ownership, "leaseDuration", Duration.ofSeconds(3));
+        return ownership;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
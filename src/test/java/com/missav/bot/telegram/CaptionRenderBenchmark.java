@@ -0,0 +1,74 @@
+package com.missav.bot.telegram;
+
+import com.missav.bot.video.entity.Video;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推送文案渲染基准测试
+ * 运行: mvn -Pbenchmark test-compile exec:exec -Djmh.args="CaptionRender -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptionRenderBenchmark {
+
+    private Video typical;
+    private Video worstCase;
+
+    @Setup
+    public void setup() {
+        typical = Video.builder()
+                .code("SSIS-001")
+                .title("新人NO.1STYLE 完全デビュー")
+                .actresses("三上悠亚, 河北彩花")
+                .tags("中文字幕, 单体作品, 高画质")
+                .duration(120)
+                .detailUrl("https://missav.ai/ssis-001")
+                .build();
+
+        // 每个字段都塞满需要转义的字符
+        String special = "_*[]()~`>#+-=|{}.!".repeat(8);
+        worstCase = Video.builder()
+                .code("ABC-123" + special)
+                .title(special)
+                .actresses(special + ", " + special)
+                .tags(special + ", " + special + ", " + special)
+                .duration(240)
+                .detailUrl("https://missav.ai/abc-123")
+                .build();
+    }
+
+    @Benchmark
+    public String renderTypical() {
+        return TelegramMessageService.renderVideoMessage(typical);
+    }
+
+    @Benchmark
+    public String renderWorstCase() {
+        return TelegramMessageService.renderVideoMessage(worstCase);
+    }
+
+    @Benchmark
+    public String escapeClean() {
+        return MarkdownEscaper.escape(typical.getActresses());
+    }
+
+    @Benchmark
+    public String escapeWorstCase() {
+        return MarkdownEscaper.escape(worstCase.getTitle());
+    }
+}
@@ -0,0 +1,40 @@
+package com.missav.bot.telegram;
+
+import com.missav.bot.video.entity.Video;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarkdownEscaperTest {
+
+    @Test
+    void testCleanInputReturnsSameInstance() {
+        String text = "三上悠亚 SSIS 001";
+        assertSame(text, MarkdownEscaper.escape(text));
+    }
+
+    @Test
+    void testEscapeSpecialCharacters() {
+        assertEquals("SSIS\\-001", MarkdownEscaper.escape("SSIS-001"));
+        assertEquals("\\_\\*\\[\\]\\(\\)\\~\\`\\>\\#\\+\\-\\=\\|\\{\\}\\.\\!",
+                MarkdownEscaper.escape("_*[]()~`>#+-=|{}.!"));
+        assertEquals("", MarkdownEscaper.escape(null));
+    }
+
+    @Test
+    void testRenderVideoMessage() {
+        Video video = Video.builder()
+                .code("SSIS-001")
+                .actresses("三上悠亚")
+                .tags("中文字幕, 单体作品,高画质")
+                .duration(120)
+                .detailUrl("https://missav.ai/ssis-001")
+                .build();
+
+        String caption = TelegramMessageService.renderVideoMessage(video);
+
+        assertTrue(caption.contains("📌 番号: `SSIS\\-001`"));
+        assertTrue(caption.contains("🏷️ 标签: #中文字幕 #单体作品 #高画质\n"));
+        assertTrue(caption.endsWith("[查看详情](https://missav.ai/ssis-001)"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.missav.bot.telegram;
+
+import com.missav.bot.telegram.TelegramConnectionGate.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelegramConnectionGateTest {
+
+    @Test
+    void testReplyOvertakesWaitingPush() throws Exception {
+        TelegramConnectionGate gate = new TelegramConnectionGate(1);
+        gate.acquire(Priority.PUSH);
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        Thread push = Thread.ofVirtual().start(() -> acquireAndRecord(gate, Priority.PUSH, order, done));
+        awaitWaiting(push);
+        Thread reply = Thread.ofVirtual().start(() -> acquireAndRecord(gate, Priority.REPLY, order, done));
+        awaitWaiting(reply);
+
+        gate.release();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("REPLY", "PUSH"), order);
+    }
+
+    @Test
+    void testPermitsLimitConcurrentCalls() throws Exception {
+        TelegramConnectionGate gate = new TelegramConnectionGate(2);
+        gate.acquire(Priority.PUSH);
+        gate.acquire(Priority.REPLY);
+
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread push = Thread.ofVirtual().start(() -> acquireAndRecord(gate, Priority.PUSH, order, done));
+        awaitWaiting(push);
+        assertTrue(order.isEmpty());
+
+        gate.release();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("PUSH"), order);
+    }
+
+    private static void acquireAndRecord(TelegramConnectionGate gate, Priority priority,
+                                         List<String> order, CountDownLatch done) {
+        try {
+            gate.acquire(priority);
+            order.add(priority.name());
+            gate.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            done.countDown();
+        }
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
@@ -0,0 +1,59 @@
+package com.missav.bot.video.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.missav.bot.common.H2MapperTestConfig;
+import com.missav.bot.video.entity.Video;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多节点视图同步读取最近新增/更新视频的 SQL 测试（H2）
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(classes = H2MapperTestConfig.class)
+class VideoMapperTest {
+
+    @Autowired
+    private VideoMapper videoMapper;
+
+    @BeforeEach
+    void setUp() {
+        videoMapper.delete(new QueryWrapper<>());
+    }
+
+    @Test
+    void testSelectChangedSinceCoversInsertsAndUpdates() {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(1);
+        Video old = video("OLD-001", since.minusHours(1));
+        Video fresh = video("NEW-001", LocalDateTime.now());
+        videoMapper.insert(old);
+        videoMapper.insert(fresh);
+
+        assertEquals(List.of("NEW-001"), codes(videoMapper.selectChangedSince(since)));
+
+        // 标记已推送会更新 updated_time，旧视频随之进入同步范围，且同一视频只返回一次
+        videoMapper.markAsPushed(old.getId());
+        videoMapper.markAsPushed(fresh.getId());
+        List<String> changed = codes(videoMapper.selectChangedSince(since));
+        assertEquals(2, changed.size());
+        assertTrue(changed.containsAll(List.of("OLD-001", "NEW-001")));
+    }
+
+    private static Video video(String code, LocalDateTime createdTime) {
+        Video video = Video.builder().code(code).title(code).pushed(false).build();
+        video.setCreatedTime(createdTime);
+        return video;
+    }
+
+    private static List<String> codes(List<Video> videos) {
+        return videos.stream().map(Video::getCode).toList();
+    }
+}
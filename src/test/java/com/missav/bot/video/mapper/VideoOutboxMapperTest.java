@@ -0,0 +1,80 @@
+package com.missav.bot.video.mapper;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.missav.bot.common.H2MapperTestConfig;
+import com.missav.bot.video.entity.VideoOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 新视频事件按状态选取 / 转发 / 搁置 SQL 测试（H2）
+ */
+@ActiveProfiles("h2")
+@SpringBootTest(classes = H2MapperTestConfig.class)
+class VideoOutboxMapperTest {
+
+    @Autowired
+    private VideoOutboxMapper videoOutboxMapper;
+
+    @BeforeEach
+    void setUp() {
+        videoOutboxMapper.delete(new QueryWrapper<>());
+        videoOutboxMapper.insertEvent(1L);
+        videoOutboxMapper.insertEvent(2L);
+    }
+
+    @Test
+    void testSmallerIdIsNotSkippedAfterLargerIdRelayed() {
+        // 模拟 ID 较大的事件先提交并被转发，ID 较小的事件之后仍能读到
+        VideoOutbox second = events(true).get(1);
+        assertEquals(1, videoOutboxMapper.markRelayed(second.getId(), 60));
+
+        List<VideoOutbox> available = events(true);
+        assertEquals(1, available.size());
+        assertEquals(1L, available.get(0).getVideoId());
+    }
+
+    @Test
+    void testRelayedEventWaitsForRetryInterval() {
+        VideoOutbox first = events(true).get(0);
+        videoOutboxMapper.markRelayed(first.getId(), 60);
+        assertEquals(List.of(2L), videoIds(events(true)));
+
+        videoOutboxMapper.markRelayed(first.getId(), 0);
+        VideoOutbox retried = videoOutboxMapper.selectById(first.getId());
+        assertEquals(2, retried.getAttempts());
+        assertEquals(List.of(1L, 2L), videoIds(events(true)));
+        // 推送队列忙时只读取从未转发的事件
+        assertEquals(List.of(2L), videoIds(events(false)));
+    }
+
+    @Test
+    void testParkedEventIsNotSelected() {
+        VideoOutbox first = events(true).get(0);
+        assertEquals(1, videoOutboxMapper.park(first.getId()));
+
+        assertEquals(List.of(2L), videoIds(events(true)));
+        assertNotNull(videoOutboxMapper.selectById(first.getId()).getParkedTime());
+    }
+
+    @Test
+    void testDeleteByVideoId() {
+        assertEquals(1, videoOutboxMapper.deleteByVideoId(1L));
+        assertEquals(List.of(2L), videoIds(events(true)));
+    }
+
+    private List<VideoOutbox> events(boolean includeRetries) {
+        return videoOutboxMapper.selectAvailable(includeRetries, 10);
+    }
+
+    private static List<Long> videoIds(List<VideoOutbox> events) {
+        return events.stream().map(VideoOutbox::getVideoId).toList();
+    }
+}
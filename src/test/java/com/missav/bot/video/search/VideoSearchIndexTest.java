@@ -0,0 +1,62 @@
+package com.missav.bot.video.search;
+
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.missav.bot.video.entity.Video;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VideoSearchIndexTest {
+
+    private VideoSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new VideoSearchIndex(null);
+        index.add(Video.builder().id(1L).code("SSIS-001").title("新人デビュー").actresses("三上悠亚").tags("中文字幕, 单体作品").build());
+        index.add(Video.builder().id(2L).code("SSIS-002").title("三上悠亚 特别篇").actresses("河北彩花").tags("单体作品").build());
+        index.add(Video.builder().id(3L).code("ABP-123").title("普通标题").actresses("河北彩花").tags("高画质").build());
+    }
+
+    @Test
+    void testTokenizeCjkBigrams() {
+        assertEquals(List.of("三上", "上悠", "悠亚"), List.copyOf(SearchTokenizer.tokenize("三上悠亚")));
+        assertEquals(List.of("ssis", "001"), List.copyOf(SearchTokenizer.tokenize("SSIS-001")));
+    }
+
+    @Test
+    void testExactCodeRanksFirst() {
+        IPage<Video> result = index.search("ssis-002", 1, 10);
+        assertEquals(1, result.getTotal());
+        assertEquals(2L, result.getRecords().get(0).getId());
+
+        result = index.search("SSIS", 1, 10);
+        assertEquals(2, result.getTotal());
+    }
+
+    @Test
+    void testFieldWeightsAndPaging() {
+        // 演员字段命中的权重高于标题
+        IPage<Video> result = index.search("三上悠亚", 1, 1);
+        assertEquals(2, result.getTotal());
+        assertEquals(1, result.getRecords().size());
+        assertEquals(1L, result.getRecords().get(0).getId());
+
+        result = index.search("三上悠亚", 2, 1);
+        assertEquals(2L, result.getRecords().get(0).getId());
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        index.add(Video.builder().id(3L).code("ABP-123").title("普通标题").actresses("三上悠亚").tags("高画质").build());
+        assertEquals(3, index.search("三上悠亚", 1, 10).getTotal());
+        assertEquals(1, index.search("河北彩花", 1, 10).getTotal());
+
+        index.remove(1L);
+        assertEquals(0, index.search("中文字幕", 1, 10).getTotal());
+        assertEquals(2, index.size());
+    }
+}